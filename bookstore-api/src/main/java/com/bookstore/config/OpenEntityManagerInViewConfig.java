@@ -0,0 +1,28 @@
+package com.bookstore.config;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.orm.jpa.support.OpenEntityManagerInViewInterceptor;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+// Open-EntityManager-in-view as Spring Boot registers it (defining the interceptor here makes Boot's own
+// back off), except for /api/auth/**. Once a request's EntityManager has used a connection it keeps it
+// until the response is written, so login and registration would hold one through a BCrypt hash.
+// AuthService does its reads and writes in short transactions of their own instead.
+@Configuration
+@ConditionalOnProperty(prefix = "spring.jpa", name = "open-in-view", havingValue = "true", matchIfMissing = true)
+public class OpenEntityManagerInViewConfig implements WebMvcConfigurer {
+
+    @Bean
+    public OpenEntityManagerInViewInterceptor openEntityManagerInViewInterceptor() {
+        return new OpenEntityManagerInViewInterceptor();
+    }
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addWebRequestInterceptor(openEntityManagerInViewInterceptor())
+                .excludePathPatterns("/api/auth/**");
+    }
+}
@@ -0,0 +1,63 @@
+package com.bookstore.config;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManagerFactory;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+
+// Databases created while ids were identity columns have rows above the new sequences' start.
+// Moves each sequence past its table's highest id before anything can insert. Under pooled-lo a
+// running instance owns [last_value, last_value + increment_by - 1] after its last nextval, so a
+// sequence is only moved when existing ids reach past that block; ids inside it are the owner's own
+// inserts and moving there would hand the rest of its block out a second time.
+@Component
+@Slf4j
+public class SequenceAlignment {
+
+    private static final List<String> TABLES = List.of(
+            "users", "categories", "books", "shopping_carts", "cart_items", "orders", "order_items");
+
+    // Arbitrary key shared by all instances so two that boot together align one after the other
+    private static final long ALIGNMENT_LOCK = 0x626f6f6b73L;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+
+    // Depending on the EntityManagerFactory makes this run after Hibernate has created the sequences
+    public SequenceAlignment(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager,
+                             EntityManagerFactory entityManagerFactory) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    @PostConstruct
+    void align() {
+        for (String table : TABLES) {
+            String sequence = table + "_seq";
+            try {
+                List<Long> moved = transactionTemplate.execute(status -> {
+                    jdbcTemplate.execute("SELECT pg_advisory_xact_lock(" + ALIGNMENT_LOCK + ")");
+                    return jdbcTemplate.queryForList(
+                            "SELECT setval('" + sequence + "', t.max_id + 1, false) " +
+                            "FROM (SELECT COALESCE(MAX(id), 0) AS max_id FROM " + table + ") t, " +
+                            sequence + " s, pg_sequences p " +
+                            "WHERE p.schemaname = current_schema() AND p.sequencename = '" + sequence + "' " +
+                            // First id the next nextval hands out
+                            "AND t.max_id >= s.last_value + CASE WHEN s.is_called THEN p.increment_by ELSE 0 END",
+                            Long.class);
+                });
+                if (moved != null && !moved.isEmpty()) {
+                    log.info("Moved sequence {} to {} to clear existing ids", sequence, moved.get(0));
+                }
+            } catch (DataAccessException e) {
+                log.warn("Could not align sequence {}: {}", sequence, e.getMessage());
+            }
+        }
+    }
+}
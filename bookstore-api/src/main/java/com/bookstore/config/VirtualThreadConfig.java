@@ -0,0 +1,57 @@
+package com.bookstore.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+
+// With spring.threads.virtual.enabled=true every request gets its own virtual thread, so the
+// JDBC pool becomes the real concurrency limit. Size it for the database rather than for the
+// request count, and make waiting for a connection fail fast instead of queueing indefinitely.
+// These are only defaults: any spring.datasource.hikari.* setting that is configured wins.
+@Configuration
+@ConditionalOnProperty(name = "spring.threads.virtual.enabled", havingValue = "true")
+@Slf4j
+public class VirtualThreadConfig {
+
+    private static final String HIKARI = "spring.datasource.hikari.";
+
+    @Bean
+    public static BeanPostProcessor virtualThreadPoolSizer(
+            Environment environment,
+            @Value("${bookstore.datasource.virtual-threads.pool-size:0}") int poolSize,
+            @Value("${bookstore.datasource.virtual-threads.connection-timeout-ms:2000}") long connectionTimeoutMs) {
+        Binder binder = Binder.get(environment);
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessBeforeInitialization(Object bean, String beanName) {
+                if (bean instanceof HikariDataSource dataSource) {
+                    if (!isSet(binder, "maximum-pool-size")) {
+                        // Classic PostgreSQL sizing: (cores * 2) + effective spindles
+                        dataSource.setMaximumPoolSize(
+                                poolSize > 0 ? poolSize : Runtime.getRuntime().availableProcessors() * 2 + 1);
+                    }
+                    if (!isSet(binder, "minimum-idle")) {
+                        dataSource.setMinimumIdle(dataSource.getMaximumPoolSize());
+                    }
+                    if (!isSet(binder, "connection-timeout")) {
+                        dataSource.setConnectionTimeout(connectionTimeoutMs);
+                    }
+                    log.info("Virtual threads enabled - JDBC pool of {} connections, {} ms connection timeout",
+                            dataSource.getMaximumPoolSize(), dataSource.getConnectionTimeout());
+                }
+                return bean;
+            }
+        };
+    }
+
+    // Bound rather than looked up, so maximumPoolSize, MAXIMUM_POOL_SIZE etc. count as set too
+    private static boolean isSet(Binder binder, String property) {
+        return binder.bind(HIKARI + property, String.class).isBound();
+    }
+}
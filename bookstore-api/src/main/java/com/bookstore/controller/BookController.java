@@ -2,18 +2,30 @@ package com.bookstore.controller;
 
 import com.bookstore.dto.request.BookRequest;
 import com.bookstore.dto.response.ApiResponse;
+import com.bookstore.dto.response.BookImportResponse;
 import com.bookstore.dto.response.BookResponse;
+import com.bookstore.dto.response.CursorPageResponse;
 import com.bookstore.dto.response.PageResponse;
 import com.bookstore.entity.BookCondition;
+import com.bookstore.service.BookExportService;
+import com.bookstore.service.BookImportService;
 import com.bookstore.service.BookService;
+import com.bookstore.service.DataFormat;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
 
+import java.io.IOException;
 import java.math.BigDecimal;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
 import java.util.List;
 
 @RestController
@@ -22,6 +34,8 @@ import java.util.List;
 public class BookController {
 
     private final BookService bookService;
+    private final BookImportService bookImportService;
+    private final BookExportService bookExportService;
 
     @GetMapping
     public ResponseEntity<ApiResponse<PageResponse<BookResponse>>> getAllBooks(
@@ -33,6 +47,28 @@ public class BookController {
         return ResponseEntity.ok(ApiResponse.success(books));
     }
 
+    // Opt-in keyset pagination: pass an empty cursor for the first page, then each response's nextCursor
+    @GetMapping(params = "cursor")
+    public ResponseEntity<ApiResponse<CursorPageResponse<BookResponse>>> getAllBooksByCursor(
+            @RequestParam String cursor,
+            @RequestParam(defaultValue = "10") int size) {
+        CursorPageResponse<BookResponse> books = bookService.getAllBooksByCursor(cursor, size);
+        return ResponseEntity.ok(ApiResponse.success(books));
+    }
+
+    // Streams the whole catalog in the import format; format is csv or ndjson
+    @GetMapping("/export")
+    @PreAuthorize("hasAnyRole('MANAGER', 'ADMINISTRATOR')")
+    public void exportBooks(
+            @RequestParam(defaultValue = "csv") String format,
+            HttpServletResponse response) throws IOException {
+        DataFormat dataFormat = DataFormat.of(format);
+        response.setContentType(dataFormat.getMediaType() + ";charset=UTF-8");
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION,
+                "attachment; filename=\"books." + dataFormat.getExtension() + "\"");
+        bookExportService.exportBooks(response.getOutputStream(), dataFormat);
+    }
+
     @GetMapping("/{id}")
     public ResponseEntity<ApiResponse<BookResponse>> getBookById(@PathVariable Long id) {
         BookResponse book = bookService.getBookById(id);
@@ -113,6 +149,21 @@ public class BookController {
                 .body(ApiResponse.success("Book created successfully", book));
     }
 
+    // Bulk import: stream a CSV body (header row of BookRequest field names, categoryIds separated by ';')
+    // or NDJSON (one BookRequest per line). Rows are validated individually and failures are reported per row.
+    @PostMapping(value = "/import", consumes = {"text/csv", "application/x-ndjson"})
+    @PreAuthorize("hasAnyRole('MANAGER', 'ADMINISTRATOR')")
+    public ResponseEntity<ApiResponse<BookImportResponse>> importBooks(
+            HttpServletRequest request,
+            @RequestHeader(HttpHeaders.CONTENT_TYPE) MediaType contentType,
+            @RequestParam(required = false) Integer chunkSize) throws IOException {
+        DataFormat format = DataFormat.of(contentType);
+        Charset charset = contentType.getCharset() != null ? contentType.getCharset() : StandardCharsets.UTF_8;
+        BookImportResponse result = bookImportService.importBooks(request.getInputStream(), charset, format, chunkSize);
+        return ResponseEntity.ok(ApiResponse.success(
+                "Imported " + result.getImported() + " of " + result.getRowsRead() + " books", result));
+    }
+
     @PutMapping("/{id}")
     @PreAuthorize("hasAnyRole('MANAGER', 'ADMINISTRATOR')")
     public ResponseEntity<ApiResponse<BookResponse>> updateBook(
@@ -3,10 +3,13 @@ package com.bookstore.controller;
 import com.bookstore.dto.request.CheckoutRequest;
 import com.bookstore.dto.request.UpdateOrderStatusRequest;
 import com.bookstore.dto.response.ApiResponse;
+import com.bookstore.dto.response.CursorPageResponse;
 import com.bookstore.dto.response.OrderResponse;
+import com.bookstore.dto.response.OrderSummaryResponse;
 import com.bookstore.dto.response.PageResponse;
 import com.bookstore.entity.OrderStatus;
 import com.bookstore.entity.User;
+import com.bookstore.service.CheckoutAdmission;
 import com.bookstore.service.OrderService;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
@@ -16,18 +19,21 @@ import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.*;
 
-import java.util.List;
-
 @RestController
 @RequestMapping("/api/orders")
 @RequiredArgsConstructor
 public class OrderController {
 
     private final OrderService orderService;
+    private final CheckoutAdmission checkoutAdmission;
 
+    // Cursor pages of the caller's history, newest first: omit cursor for the first page, then pass nextCursor
     @GetMapping
-    public ResponseEntity<ApiResponse<List<OrderResponse>>> getMyOrders(@AuthenticationPrincipal User user) {
-        List<OrderResponse> orders = orderService.getOrderHistory(user.getId());
+    public ResponseEntity<ApiResponse<CursorPageResponse<OrderResponse>>> getMyOrders(
+            @AuthenticationPrincipal User user,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int size) {
+        CursorPageResponse<OrderResponse> orders = orderService.getOrderHistory(user.getId(), cursor, size);
         return ResponseEntity.ok(ApiResponse.success(orders));
     }
 
@@ -40,6 +46,16 @@ public class OrderController {
         return ResponseEntity.ok(ApiResponse.success(orders));
     }
 
+    // List-view variant without line items
+    @GetMapping(value = "/paged", params = "view=summary")
+    public ResponseEntity<ApiResponse<PageResponse<OrderSummaryResponse>>> getMyOrderSummaries(
+            @AuthenticationPrincipal User user,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "10") int size) {
+        PageResponse<OrderSummaryResponse> orders = orderService.getUserOrderSummaries(user.getId(), page, size);
+        return ResponseEntity.ok(ApiResponse.success(orders));
+    }
+
     @GetMapping("/{id}")
     public ResponseEntity<ApiResponse<OrderResponse>> getOrder(
             @PathVariable Long id,
@@ -60,7 +76,7 @@ public class OrderController {
     public ResponseEntity<ApiResponse<OrderResponse>> checkout(
             @AuthenticationPrincipal User user,
             @Valid @RequestBody CheckoutRequest request) {
-        OrderResponse order = orderService.checkout(user.getId(), request);
+        OrderResponse order = checkoutAdmission.admit(user.getId(), () -> orderService.checkout(user.getId(), request));
         return ResponseEntity.status(HttpStatus.CREATED)
                 .body(ApiResponse.success("Order placed successfully! Payment will be collected on delivery.", order));
     }
@@ -85,6 +101,27 @@ public class OrderController {
         return ResponseEntity.ok(ApiResponse.success(orders));
     }
 
+    @GetMapping(value = "/all", params = "view=summary")
+    @PreAuthorize("hasAnyRole('MANAGER', 'ADMINISTRATOR')")
+    public ResponseEntity<ApiResponse<PageResponse<OrderSummaryResponse>>> getAllOrderSummaries(
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "10") int size,
+            @RequestParam(defaultValue = "createdAt") String sortBy,
+            @RequestParam(defaultValue = "desc") String sortDir) {
+        PageResponse<OrderSummaryResponse> orders = orderService.getAllOrderSummaries(page, size, sortBy, sortDir);
+        return ResponseEntity.ok(ApiResponse.success(orders));
+    }
+
+    // Opt-in keyset pagination: pass an empty cursor for the first page, then each response's nextCursor
+    @GetMapping(value = "/all", params = "cursor")
+    @PreAuthorize("hasAnyRole('MANAGER', 'ADMINISTRATOR')")
+    public ResponseEntity<ApiResponse<CursorPageResponse<OrderResponse>>> getAllOrdersByCursor(
+            @RequestParam String cursor,
+            @RequestParam(defaultValue = "10") int size) {
+        CursorPageResponse<OrderResponse> orders = orderService.getAllOrdersByCursor(cursor, size);
+        return ResponseEntity.ok(ApiResponse.success(orders));
+    }
+
     @GetMapping("/status/{status}")
     @PreAuthorize("hasAnyRole('MANAGER', 'ADMINISTRATOR')")
     public ResponseEntity<ApiResponse<PageResponse<OrderResponse>>> getOrdersByStatus(
@@ -95,6 +132,16 @@ public class OrderController {
         return ResponseEntity.ok(ApiResponse.success(orders));
     }
 
+    @GetMapping(value = "/status/{status}", params = "view=summary")
+    @PreAuthorize("hasAnyRole('MANAGER', 'ADMINISTRATOR')")
+    public ResponseEntity<ApiResponse<PageResponse<OrderSummaryResponse>>> getOrderSummariesByStatus(
+            @PathVariable OrderStatus status,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "10") int size) {
+        PageResponse<OrderSummaryResponse> orders = orderService.getOrderSummariesByStatus(status, page, size);
+        return ResponseEntity.ok(ApiResponse.success(orders));
+    }
+
     @PutMapping("/{id}/status")
     @PreAuthorize("hasAnyRole('MANAGER', 'ADMINISTRATOR')")
     public ResponseEntity<ApiResponse<OrderResponse>> updateOrderStatus(
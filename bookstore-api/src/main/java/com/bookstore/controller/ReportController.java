@@ -1,13 +1,19 @@
 package com.bookstore.controller;
 
 import com.bookstore.dto.response.ApiResponse;
+import com.bookstore.service.DataFormat;
+import com.bookstore.service.OrderExportService;
 import com.bookstore.service.ReportService;
+import com.bookstore.service.SalesAggregateService;
+import jakarta.servlet.http.HttpServletResponse;
 import lombok.RequiredArgsConstructor;
 import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
 
+import java.io.IOException;
 import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Map;
@@ -19,6 +25,8 @@ import java.util.Map;
 public class ReportController {
 
     private final ReportService reportService;
+    private final SalesAggregateService salesAggregateService;
+    private final OrderExportService orderExportService;
 
     @GetMapping("/inventory")
     public ResponseEntity<ApiResponse<Map<String, Object>>> getInventoryReport() {
@@ -34,9 +42,39 @@ public class ReportController {
         return ResponseEntity.ok(ApiResponse.success(report));
     }
 
+    @GetMapping("/best-sellers")
+    public ResponseEntity<ApiResponse<List<Map<String, Object>>>> getBestSellers(
+            @RequestParam(defaultValue = "10") int limit,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime startDate,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime endDate) {
+        List<Map<String, Object>> report = reportService.getBestSellers(limit, startDate, endDate);
+        return ResponseEntity.ok(ApiResponse.success(report));
+    }
+
     @GetMapping("/sales/daily")
     public ResponseEntity<ApiResponse<List<Map<String, Object>>>> getDailySalesReport() {
         List<Map<String, Object>> report = reportService.getDailySalesReport();
         return ResponseEntity.ok(ApiResponse.success(report));
     }
+
+    // Streams orders and line items created in [startDate, endDate) for accounting; format is csv or ndjson
+    @GetMapping("/orders/export")
+    public void exportOrders(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime startDate,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime endDate,
+            @RequestParam(defaultValue = "csv") String format,
+            HttpServletResponse response) throws IOException {
+        DataFormat dataFormat = DataFormat.of(format);
+        response.setContentType(dataFormat.getMediaType() + ";charset=UTF-8");
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION,
+                "attachment; filename=\"orders." + dataFormat.getExtension() + "\"");
+        orderExportService.exportOrders(response.getOutputStream(), startDate, endDate, dataFormat);
+    }
+
+    @PostMapping("/sales/rebuild")
+    @PreAuthorize("hasRole('ADMINISTRATOR')")
+    public ResponseEntity<ApiResponse<Void>> rebuildSalesAggregates() {
+        salesAggregateService.rebuild();
+        return ResponseEntity.ok(ApiResponse.success("Sales aggregates rebuilt"));
+    }
 }
@@ -25,7 +25,8 @@ public class UserController {
 
     @GetMapping("/me")
     public ResponseEntity<ApiResponse<UserResponse>> getCurrentUser(@AuthenticationPrincipal User user) {
-        UserResponse response = UserResponse.fromEntity(user);
+        // Principal may be built from token claims only, so load the full profile
+        UserResponse response = userService.getUserById(user.getId());
         return ResponseEntity.ok(ApiResponse.success(response));
     }
 
@@ -0,0 +1,32 @@
+package com.bookstore.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BookImportResponse {
+    private long rowsRead;
+    private long imported;
+    private long failed;
+    private long durationMs;
+    private double booksPerSecond;
+    private List<RowError> errors;
+    // True when more rows failed than are listed in errors
+    private boolean errorsTruncated;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class RowError {
+        private long row;
+        private String isbn;
+        private String message;
+    }
+}
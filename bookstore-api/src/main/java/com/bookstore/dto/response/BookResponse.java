@@ -35,6 +35,15 @@ public class BookResponse {
     private LocalDateTime updatedAt;
 
     public static BookResponse fromEntity(Book book) {
+        BookResponse response = withoutCategories(book);
+        response.setCategories(book.getCategories().stream()
+                .map(CategoryResponse::fromEntity)
+                .collect(Collectors.toSet()));
+        return response;
+    }
+
+    // The book's own columns only, so its lazy categories are never loaded (cart lines)
+    public static BookResponse withoutCategories(Book book) {
         return BookResponse.builder()
                 .id(book.getId())
                 .isbn(book.getIsbn())
@@ -48,9 +57,6 @@ public class BookResponse {
                 .bookCondition(book.getBookCondition())
                 .imageUrl(book.getImageUrl())
                 .isRare(book.getIsRare())
-                .categories(book.getCategories().stream()
-                        .map(CategoryResponse::fromEntity)
-                        .collect(Collectors.toSet()))
                 .inStock(book.getQuantity() > 0)
                 .createdAt(book.getCreatedAt())
                 .updatedAt(book.getUpdatedAt())
@@ -27,18 +27,22 @@ public class CartItemResponse {
     private LocalDateTime addedAt;
 
     public static CartItemResponse fromEntity(CartItem item) {
+        return of(item.getId(), BookResponse.withoutCategories(item.getBook()), item.getQuantity(), item.getAddedAt());
+    }
+
+    public static CartItemResponse of(Long id, BookResponse book, int quantity, LocalDateTime addedAt) {
         return CartItemResponse.builder()
-                .id(item.getId())
-                .bookId(item.getBook().getId())
-                .bookTitle(item.getBook().getTitle())
-                .bookAuthor(item.getBook().getAuthor())
-                .bookIsbn(item.getBook().getIsbn())
-                .imageUrl(item.getBook().getImageUrl())
-                .price(item.getBook().getPrice())
-                .quantity(item.getQuantity())
-                .lineTotal(item.getBook().getPrice().multiply(BigDecimal.valueOf(item.getQuantity())))
-                .availableStock(item.getBook().getQuantity())
-                .addedAt(item.getAddedAt())
+                .id(id)
+                .bookId(book.getId())
+                .bookTitle(book.getTitle())
+                .bookAuthor(book.getAuthor())
+                .bookIsbn(book.getIsbn())
+                .imageUrl(book.getImageUrl())
+                .price(book.getPrice())
+                .quantity(quantity)
+                .lineTotal(book.getPrice().multiply(BigDecimal.valueOf(quantity)))
+                .availableStock(book.getQuantity())
+                .addedAt(addedAt)
                 .build();
     }
 }
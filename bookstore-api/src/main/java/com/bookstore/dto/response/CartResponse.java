@@ -27,24 +27,33 @@ public class CartResponse {
     private LocalDateTime updatedAt;
 
     public static CartResponse fromEntity(ShoppingCart cart) {
-        BigDecimal subtotal = cart.getTotal();
+        return of(cart.getId(),
+                cart.getUser().getId(),
+                cart.getItems().stream()
+                        .map(CartItemResponse::fromEntity)
+                        .collect(Collectors.toList()),
+                cart.getUpdatedAt());
+    }
+
+    public static CartResponse of(Long id, Long userId, List<CartItemResponse> items, LocalDateTime updatedAt) {
+        BigDecimal subtotal = items.stream()
+                .map(CartItemResponse::getLineTotal)
+                .reduce(BigDecimal.ZERO, BigDecimal::add);
         BigDecimal tax = subtotal.multiply(BigDecimal.valueOf(0.08)).setScale(2, java.math.RoundingMode.HALF_UP);
         BigDecimal shipping = subtotal.compareTo(BigDecimal.valueOf(50)) >= 0 
             ? BigDecimal.ZERO 
             : BigDecimal.valueOf(5.99);
         
         return CartResponse.builder()
-                .id(cart.getId())
-                .userId(cart.getUser().getId())
-                .items(cart.getItems().stream()
-                        .map(CartItemResponse::fromEntity)
-                        .collect(Collectors.toList()))
-                .totalItems(cart.getTotalItems())
+                .id(id)
+                .userId(userId)
+                .items(items)
+                .totalItems(items.stream().mapToInt(CartItemResponse::getQuantity).sum())
                 .subtotal(subtotal)
                 .estimatedTax(tax)
                 .estimatedShipping(shipping)
                 .estimatedTotal(subtotal.add(tax).add(shipping))
-                .updatedAt(cart.getUpdatedAt())
+                .updatedAt(updatedAt)
                 .build();
     }
 }
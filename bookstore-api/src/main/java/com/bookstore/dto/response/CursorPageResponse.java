@@ -0,0 +1,30 @@
+package com.bookstore.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class CursorPageResponse<T> {
+    private List<T> content;
+    private int pageSize;
+    private String nextCursor;
+    private boolean last;
+    private boolean empty;
+
+    public static <T> CursorPageResponse<T> of(List<T> content, int pageSize, String nextCursor) {
+        return CursorPageResponse.<T>builder()
+                .content(content)
+                .pageSize(pageSize)
+                .nextCursor(nextCursor)
+                .last(nextCursor == null)
+                .empty(content.isEmpty())
+                .build();
+    }
+}
@@ -0,0 +1,29 @@
+package com.bookstore.dto.response;
+
+import com.bookstore.entity.OrderStatus;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+// List-view projection of an order without line items, built directly by OrderRepository queries
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class OrderSummaryResponse {
+    private Long id;
+    private String orderNumber;
+    private Long userId;
+    private String customerName;
+    private String customerEmail;
+    private OrderStatus status;
+    private BigDecimal total;
+    private Long itemCount;
+    private LocalDateTime createdAt;
+    private LocalDateTime shippedAt;
+    private LocalDateTime deliveredAt;
+}
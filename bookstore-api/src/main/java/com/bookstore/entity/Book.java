@@ -3,6 +3,7 @@ package com.bookstore.entity;
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import jakarta.persistence.*;
 import lombok.*;
+import org.hibernate.annotations.BatchSize;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
@@ -10,7 +11,7 @@ import java.util.HashSet;
 import java.util.Set;
 
 @Entity
-@Table(name = "books")
+@Table(name = "books", indexes = @Index(name = "idx_books_created_at_id", columnList = "created_at, id"))
 @Data
 @Builder
 @NoArgsConstructor
@@ -20,7 +21,8 @@ import java.util.Set;
 public class Book {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "books_seq")
+    @SequenceGenerator(name = "books_seq", sequenceName = "books_seq", allocationSize = 50)
     private Long id;
 
     @Column(nullable = false, unique = true)
@@ -52,7 +54,9 @@ public class Book {
 
     private Boolean isRare;
 
+    // Books read in bulk (stock reports) load their categories for 100 books per query
     @ManyToMany(fetch = FetchType.LAZY)
+    @BatchSize(size = 100)
     @JoinTable(
             name = "book_categories",
             joinColumns = @JoinColumn(name = "book_id"),
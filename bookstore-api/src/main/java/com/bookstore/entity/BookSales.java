@@ -0,0 +1,20 @@
+package com.bookstore.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+// Running units sold per book across non-cancelled orders
+@Entity
+@Table(name = "book_sales", indexes = @Index(name = "idx_book_sales_units_sold", columnList = "units_sold"))
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BookSales {
+
+    @Id
+    private Long bookId;
+
+    @Column(nullable = false)
+    private Long unitsSold;
+}
@@ -0,0 +1,31 @@
+package com.bookstore.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+// Running totals of non-cancelled orders per day.
+// Each day is split over a few slots so concurrent checkouts don't all update the same row.
+@Entity
+@Table(name = "daily_sales")
+@IdClass(DailySalesId.class)
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class DailySales {
+
+    @Id
+    private LocalDate saleDate;
+
+    @Id
+    private Integer slot;
+
+    @Column(nullable = false)
+    private Long orderCount;
+
+    @Column(nullable = false, precision = 14, scale = 2)
+    private BigDecimal revenue;
+}
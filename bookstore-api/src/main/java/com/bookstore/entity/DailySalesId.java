@@ -0,0 +1,16 @@
+package com.bookstore.entity;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+import java.time.LocalDate;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class DailySalesId implements Serializable {
+    private LocalDate saleDate;
+    private Integer slot;
+}
@@ -0,0 +1,29 @@
+package com.bookstore.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+// Stock change recorded by the inventory ledger and not yet folded into books.quantity
+@Entity
+@Table(name = "inventory_journal", indexes = @Index(name = "idx_inventory_journal_book_id", columnList = "book_id"))
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class InventoryJournalEntry {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "book_id", nullable = false)
+    private Long bookId;
+
+    @Column(nullable = false)
+    private Integer delta;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+}
@@ -0,0 +1,25 @@
+package com.bookstore.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+// Running count of orders per status, split over slots like DailySales
+@Entity
+@Table(name = "order_status_counts")
+@IdClass(OrderStatusCountId.class)
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class OrderStatusCount {
+
+    @Id
+    @Enumerated(EnumType.STRING)
+    private OrderStatus status;
+
+    @Id
+    private Integer slot;
+
+    @Column(nullable = false)
+    private Long orderCount;
+}
@@ -0,0 +1,15 @@
+package com.bookstore.entity;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class OrderStatusCountId implements Serializable {
+    private OrderStatus status;
+    private Integer slot;
+}
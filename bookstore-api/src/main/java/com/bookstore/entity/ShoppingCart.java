@@ -22,7 +22,8 @@ import java.util.List;
 public class ShoppingCart {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "shopping_carts_seq")
+    @SequenceGenerator(name = "shopping_carts_seq", sequenceName = "shopping_carts_seq", allocationSize = 50)
     private Long id;
 
     @OneToOne(fetch = FetchType.LAZY)
@@ -2,19 +2,27 @@ package com.bookstore.repository;
 
 import com.bookstore.entity.Book;
 import com.bookstore.entity.BookCondition;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
-public interface BookRepository extends JpaRepository<Book, Long> {
+public interface BookRepository extends JpaRepository<Book, Long>, JpaSpecificationExecutor<Book> {
 
     Optional<Book> findByIsbn(String isbn);
 
@@ -24,6 +32,10 @@ public interface BookRepository extends JpaRepository<Book, Long> {
 
     List<Book> findByIsRare(Boolean isRare);
 
+    // Rare books are a handful, so checkout admission keeps their ids in memory
+    @Query("SELECT b.id FROM Book b WHERE b.isRare = true")
+    List<Long> findRareBookIds();
+
     List<Book> findByBookCondition(BookCondition condition);
 
     // Search by title, author, or ISBN
@@ -33,6 +45,40 @@ public interface BookRepository extends JpaRepository<Book, Long> {
             "LOWER(b.isbn) LIKE LOWER(CONCAT('%', :keyword, '%'))")
     Page<Book> searchBooks(@Param("keyword") String keyword, Pageable pageable);
 
+    // Second phase of paged listings - loads a page of books with categories in one round trip
+    @Query("SELECT DISTINCT b FROM Book b LEFT JOIN FETCH b.categories WHERE b.id IN :ids")
+    List<Book> findAllWithCategoriesByIdIn(@Param("ids") Collection<Long> ids);
+
+    // Lightweight projection used to build the in-memory search index
+    @Query("SELECT b.id, b.title, b.author, b.isbn FROM Book b")
+    List<Object[]> findSearchableFields();
+
+    // Set-based duplicate check for bulk import
+    @Query("SELECT b.isbn FROM Book b WHERE b.isbn IN :isbns")
+    List<String> findExistingIsbns(@Param("isbns") Collection<String> isbns);
+
+    // Forward-only cursor over the whole catalog for export; must be consumed inside a transaction
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT b FROM Book b ORDER BY b.id")
+    Stream<Book> streamAll();
+
+    // (bookId, categoryId) pairs for a chunk of books
+    @Query("SELECT b.id, c.id FROM Book b JOIN b.categories c WHERE b.id IN :ids")
+    List<Object[]> findCategoryIdsByBookIdIn(@Param("ids") Collection<Long> ids);
+
+    // Keyset pagination on (createdAt DESC, id DESC) - no OFFSET and no count query
+    @Query("SELECT b FROM Book b ORDER BY b.createdAt DESC, b.id DESC")
+    List<Book> findFirstKeysetPage(Pageable pageable);
+
+    @Query("SELECT b FROM Book b WHERE b.createdAt < :createdAt OR (b.createdAt = :createdAt AND b.id < :id) " +
+            "ORDER BY b.createdAt DESC, b.id DESC")
+    List<Book> findKeysetPageAfter(@Param("createdAt") LocalDateTime createdAt,
+                                   @Param("id") Long id,
+                                   Pageable pageable);
+
     // Find books by category
     @Query("SELECT b FROM Book b JOIN b.categories c WHERE c.id = :categoryId")
     Page<Book> findByCategory(@Param("categoryId") Long categoryId, Pageable pageable);
@@ -59,40 +105,16 @@ public interface BookRepository extends JpaRepository<Book, Long> {
                                 @Param("maxPrice") BigDecimal maxPrice,
                                 Pageable pageable);
 
-    // Advanced search with multiple filters - Fixed for PostgreSQL null handling
-    // Now includes ISBN in keyword search
-    @Query(value = "SELECT DISTINCT b.* FROM books b " +
-            "LEFT JOIN book_categories bc ON b.id = bc.book_id " +
-            "LEFT JOIN categories c ON bc.category_id = c.id " +
-            "WHERE (:keyword IS NULL OR :keyword = '' OR LOWER(b.title) LIKE LOWER(CONCAT('%', :keyword, '%')) OR LOWER(b.author) LIKE LOWER(CONCAT('%', :keyword, '%')) OR LOWER(b.isbn) LIKE LOWER(CONCAT('%', :keyword, '%'))) " +
-            "AND (:categoryId IS NULL OR c.id = :categoryId) " +
-            "AND (:minPrice IS NULL OR b.price >= :minPrice) " +
-            "AND (:maxPrice IS NULL OR b.price <= :maxPrice) " +
-            "AND (:condition IS NULL OR b.book_condition = :condition) " +
-            "AND (:isRare IS NULL OR b.is_rare = :isRare) " +
-            "AND (:inStock IS NULL OR (:inStock = true AND b.quantity > 0) OR :inStock = false) " +
-            "ORDER BY b.created_at DESC",
-            countQuery = "SELECT COUNT(DISTINCT b.id) FROM books b " +
-                    "LEFT JOIN book_categories bc ON b.id = bc.book_id " +
-                    "LEFT JOIN categories c ON bc.category_id = c.id " +
-                    "WHERE (:keyword IS NULL OR :keyword = '' OR LOWER(b.title) LIKE LOWER(CONCAT('%', :keyword, '%')) OR LOWER(b.author) LIKE LOWER(CONCAT('%', :keyword, '%')) OR LOWER(b.isbn) LIKE LOWER(CONCAT('%', :keyword, '%'))) " +
-                    "AND (:categoryId IS NULL OR c.id = :categoryId) " +
-                    "AND (:minPrice IS NULL OR b.price >= :minPrice) " +
-                    "AND (:maxPrice IS NULL OR b.price <= :maxPrice) " +
-                    "AND (:condition IS NULL OR b.book_condition = :condition) " +
-                    "AND (:isRare IS NULL OR b.is_rare = :isRare) " +
-                    "AND (:inStock IS NULL OR (:inStock = true AND b.quantity > 0) OR :inStock = false)",
-            nativeQuery = true)
-    Page<Book> advancedSearch(
-            @Param("keyword") String keyword,
-            @Param("categoryId") Long categoryId,
-            @Param("minPrice") BigDecimal minPrice,
-            @Param("maxPrice") BigDecimal maxPrice,
-            @Param("condition") String condition,
-            @Param("isRare") Boolean isRare,
-            @Param("inStock") Boolean inStock,
-            Pageable pageable
-    );
+    // Atomically take stock - returns 0 when there is not enough left
+    @Modifying
+    @Query("UPDATE Book b SET b.quantity = b.quantity - :quantity, b.updatedAt = CURRENT_TIMESTAMP " +
+            "WHERE b.id = :id AND b.quantity >= :quantity")
+    int decrementStock(@Param("id") Long id, @Param("quantity") int quantity);
+
+    // Atomically return stock (e.g. on cancellation)
+    @Modifying
+    @Query("UPDATE Book b SET b.quantity = b.quantity + :quantity, b.updatedAt = CURRENT_TIMESTAMP WHERE b.id = :id")
+    int incrementStock(@Param("id") Long id, @Param("quantity") int quantity);
 
     // Inventory reports
     @Query("SELECT SUM(b.price * b.quantity) FROM Book b")
@@ -0,0 +1,32 @@
+package com.bookstore.repository;
+
+import com.bookstore.entity.BookSales;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface BookSalesRepository extends JpaRepository<BookSales, Long> {
+
+    @Modifying
+    @Query(value = "INSERT INTO book_sales (book_id, units_sold) VALUES (:bookId, :units) " +
+            "ON CONFLICT (book_id) DO UPDATE SET units_sold = book_sales.units_sold + EXCLUDED.units_sold",
+            nativeQuery = true)
+    void addUnits(@Param("bookId") Long bookId, @Param("units") long units);
+
+    @Modifying
+    @Query(value = "INSERT INTO book_sales (book_id, units_sold) " +
+            "SELECT oi.book_id, SUM(oi.quantity) FROM order_items oi JOIN orders o ON o.id = oi.order_id " +
+            "WHERE o.status <> 'CANCELLED' GROUP BY oi.book_id",
+            nativeQuery = true)
+    void rebuildFromOrders();
+
+    @Query("SELECT s.bookId, b.title, s.unitsSold FROM BookSales s, Book b " +
+            "WHERE b.id = s.bookId AND s.unitsSold > 0 ORDER BY s.unitsSold DESC")
+    List<Object[]> findBestSellingBooks(Pageable pageable);
+}
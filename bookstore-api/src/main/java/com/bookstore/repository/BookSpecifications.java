@@ -0,0 +1,65 @@
+package com.bookstore.repository;
+
+import com.bookstore.entity.Book;
+import com.bookstore.entity.BookCondition;
+import com.bookstore.entity.Category;
+import jakarta.persistence.criteria.Join;
+import jakarta.persistence.criteria.Subquery;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.math.BigDecimal;
+import java.util.Locale;
+
+// Composable filters for BookController /filter - each one is only applied when its parameter is set
+public final class BookSpecifications {
+
+    private BookSpecifications() {
+    }
+
+    public static Specification<Book> keywordMatches(String keyword) {
+        if (keyword == null) {
+            return null;
+        }
+        String pattern = "%" + keyword.toLowerCase(Locale.ROOT) + "%";
+        return (root, query, cb) -> cb.or(
+                cb.like(cb.lower(root.get("title")), pattern),
+                cb.like(cb.lower(root.get("author")), pattern),
+                cb.like(cb.lower(root.get("isbn")), pattern));
+    }
+
+    // EXISTS subquery rather than a join, so no DISTINCT is needed on the outer query. The subquery is
+    // correlated to the outer book, so it only walks that book's book_categories rows.
+    public static Specification<Book> inCategory(Long categoryId) {
+        if (categoryId == null) {
+            return null;
+        }
+        return (root, query, cb) -> {
+            Subquery<Long> subquery = query.subquery(Long.class);
+            Join<Book, Category> category = subquery.correlate(root).join("categories");
+            subquery.select(category.get("id"))
+                    .where(cb.equal(category.get("id"), categoryId));
+            return cb.exists(subquery);
+        };
+    }
+
+    public static Specification<Book> priceAtLeast(BigDecimal minPrice) {
+        return minPrice == null ? null : (root, query, cb) -> cb.greaterThanOrEqualTo(root.get("price"), minPrice);
+    }
+
+    public static Specification<Book> priceAtMost(BigDecimal maxPrice) {
+        return maxPrice == null ? null : (root, query, cb) -> cb.lessThanOrEqualTo(root.get("price"), maxPrice);
+    }
+
+    public static Specification<Book> hasCondition(BookCondition condition) {
+        return condition == null ? null : (root, query, cb) -> cb.equal(root.get("bookCondition"), condition);
+    }
+
+    public static Specification<Book> isRare(Boolean isRare) {
+        return isRare == null ? null : (root, query, cb) -> cb.equal(root.get("isRare"), isRare);
+    }
+
+    // inStock=false means "no stock filter", matching the previous native query
+    public static Specification<Book> inStockOnly(Boolean inStock) {
+        return !Boolean.TRUE.equals(inStock) ? null : (root, query, cb) -> cb.greaterThan(root.get("quantity"), 0);
+    }
+}
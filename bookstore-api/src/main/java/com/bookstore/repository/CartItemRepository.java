@@ -7,12 +7,17 @@ import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.List;
 import java.util.Optional;
 
 @Repository
 public interface CartItemRepository extends JpaRepository<CartItem, Long> {
     
     Optional<CartItem> findByCartIdAndBookId(Long cartId, Long bookId);
+
+    // (bookId, quantity) of every line in the user's cart
+    @Query("SELECT ci.book.id, ci.quantity FROM CartItem ci WHERE ci.cart.user.id = :userId")
+    List<Object[]> findLineQuantitiesByUserId(@Param("userId") Long userId);
     
     @Modifying
     @Query("DELETE FROM CartItem ci WHERE ci.cart.id = :cartId")
@@ -21,4 +26,27 @@ public interface CartItemRepository extends JpaRepository<CartItem, Long> {
     @Modifying
     @Query("DELETE FROM CartItem ci WHERE ci.cart.id = :cartId AND ci.book.id = :bookId")
     void deleteByCartIdAndBookId(@Param("cartId") Long cartId, @Param("bookId") Long bookId);
+
+    // Inserts the line or adds to its quantity in one statement, only if the book has enough stock
+    // for the resulting quantity. Returns (id, quantity) of the line, or no row when the book is
+    // missing or the stock guard fails.
+    @Query(value = "INSERT INTO cart_items (id, cart_id, book_id, quantity, added_at) " +
+            "SELECT nextval('cart_items_seq'), :cartId, b.id, :quantity, CURRENT_TIMESTAMP FROM books b " +
+            "WHERE b.id = :bookId AND b.quantity >= :quantity " +
+            "ON CONFLICT (cart_id, book_id) DO UPDATE SET quantity = cart_items.quantity + EXCLUDED.quantity " +
+            "WHERE cart_items.quantity + EXCLUDED.quantity <= " +
+            "(SELECT b2.quantity FROM books b2 WHERE b2.id = EXCLUDED.book_id) " +
+            "RETURNING id, quantity", nativeQuery = true)
+    List<Object[]> upsertItem(@Param("cartId") Long cartId,
+                              @Param("bookId") Long bookId,
+                              @Param("quantity") int quantity);
+
+    // Sets the line quantity only if the book has enough stock; returns 0 when the guard fails
+    @Modifying
+    @Query(value = "UPDATE cart_items ci SET quantity = :quantity FROM books b " +
+            "WHERE ci.cart_id = :cartId AND ci.book_id = :bookId " +
+            "AND b.id = ci.book_id AND b.quantity >= :quantity", nativeQuery = true)
+    int updateQuantityIfInStock(@Param("cartId") Long cartId,
+                                @Param("bookId") Long bookId,
+                                @Param("quantity") int quantity);
 }
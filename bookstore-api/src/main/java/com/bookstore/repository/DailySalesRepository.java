@@ -0,0 +1,47 @@
+package com.bookstore.repository;
+
+import com.bookstore.entity.DailySales;
+import com.bookstore.entity.DailySalesId;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+
+@Repository
+public interface DailySalesRepository extends JpaRepository<DailySales, DailySalesId> {
+
+    @Modifying
+    @Query(value = "INSERT INTO daily_sales (sale_date, slot, order_count, revenue) " +
+            "VALUES (:saleDate, :slot, :orders, :revenue) " +
+            "ON CONFLICT (sale_date, slot) DO UPDATE SET " +
+            "order_count = daily_sales.order_count + EXCLUDED.order_count, " +
+            "revenue = daily_sales.revenue + EXCLUDED.revenue",
+            nativeQuery = true)
+    void addSales(@Param("saleDate") LocalDate saleDate,
+                  @Param("slot") int slot,
+                  @Param("orders") long orders,
+                  @Param("revenue") BigDecimal revenue);
+
+    @Modifying
+    @Query(value = "INSERT INTO daily_sales (sale_date, slot, order_count, revenue) " +
+            "SELECT CAST(o.created_at AS DATE), 0, COUNT(*), SUM(o.total) FROM orders o " +
+            "WHERE o.status <> 'CANCELLED' GROUP BY CAST(o.created_at AS DATE)",
+            nativeQuery = true)
+    void rebuildFromOrders();
+
+    @Query("SELECT SUM(d.revenue) FROM DailySales d")
+    BigDecimal getTotalRevenue();
+
+    @Query("SELECT SUM(d.revenue) FROM DailySales d WHERE d.saleDate BETWEEN :startDate AND :endDate")
+    BigDecimal getRevenueByDateRange(@Param("startDate") LocalDate startDate,
+                                      @Param("endDate") LocalDate endDate);
+
+    @Query("SELECT d.saleDate, SUM(d.orderCount), SUM(d.revenue) FROM DailySales d " +
+            "GROUP BY d.saleDate HAVING SUM(d.orderCount) > 0 ORDER BY d.saleDate DESC")
+    List<Object[]> getDailySalesReport();
+}
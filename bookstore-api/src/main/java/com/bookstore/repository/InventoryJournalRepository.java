@@ -0,0 +1,41 @@
+package com.bookstore.repository;
+
+import com.bookstore.entity.InventoryJournalEntry;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface InventoryJournalRepository extends JpaRepository<InventoryJournalEntry, Long> {
+
+    @Modifying
+    @Query(value = "INSERT INTO inventory_journal (book_id, delta, created_at) VALUES (:bookId, :delta, CURRENT_TIMESTAMP)",
+            nativeQuery = true)
+    void append(@Param("bookId") Long bookId, @Param("delta") int delta);
+
+    @Modifying
+    @Query(value = "DELETE FROM inventory_journal WHERE book_id = :bookId", nativeQuery = true)
+    int deleteByBookId(@Param("bookId") Long bookId);
+
+    // Available stock = folded quantity plus changes still waiting in the journal
+    @Query(value = "SELECT b.quantity + COALESCE((SELECT SUM(j.delta) FROM inventory_journal j WHERE j.book_id = b.id), 0) " +
+            "FROM books b WHERE b.id = :bookId",
+            nativeQuery = true)
+    Long findAvailable(@Param("bookId") Long bookId);
+
+    @Query(value = "SELECT b.id, b.quantity + COALESCE(j.delta, 0) FROM books b " +
+            "LEFT JOIN (SELECT book_id, SUM(delta) AS delta FROM inventory_journal GROUP BY book_id) j ON j.book_id = b.id",
+            nativeQuery = true)
+    List<Object[]> findAllAvailable();
+
+    @Query(value = "SELECT b.id, b.quantity + COALESCE(j.delta, 0) FROM books b " +
+            "LEFT JOIN (SELECT book_id, SUM(delta) AS delta FROM inventory_journal WHERE book_id IN (:bookIds) " +
+            "GROUP BY book_id) j ON j.book_id = b.id WHERE b.id IN (:bookIds)",
+            nativeQuery = true)
+    List<Object[]> findAvailableByBookIdIn(@Param("bookIds") Collection<Long> bookIds);
+}
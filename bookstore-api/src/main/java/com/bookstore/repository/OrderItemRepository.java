@@ -1,11 +1,14 @@
 package com.bookstore.repository;
 
 import com.bookstore.entity.OrderItem;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 
 @Repository
@@ -13,11 +16,19 @@ public interface OrderItemRepository extends JpaRepository<OrderItem, Long> {
     
     List<OrderItem> findByOrderId(Long orderId);
     
-    // Find most sold books
+    // Line items for a chunk of exported orders: (orderId, bookId, isbn, title, quantity, priceAtPurchase)
+    @Query("SELECT oi.order.id, b.id, b.isbn, b.title, oi.quantity, oi.priceAtPurchase " +
+           "FROM OrderItem oi JOIN oi.book b WHERE oi.order.id IN :orderIds ORDER BY oi.order.id, oi.id")
+    List<Object[]> findExportLinesByOrderIdIn(@Param("orderIds") Collection<Long> orderIds);
+    
+    // Top-K most sold books within a date window - the limit is applied in the database
     @Query("SELECT oi.book.id, oi.book.title, SUM(oi.quantity) as totalSold " +
            "FROM OrderItem oi WHERE oi.order.status != 'CANCELLED' " +
+           "AND oi.order.createdAt BETWEEN :startDate AND :endDate " +
            "GROUP BY oi.book.id, oi.book.title ORDER BY totalSold DESC")
-    List<Object[]> findBestSellingBooks();
+    List<Object[]> findBestSellingBooks(@Param("startDate") LocalDateTime startDate,
+                                        @Param("endDate") LocalDateTime endDate,
+                                        Pageable pageable);
     
     // Sales by book
     @Query("SELECT SUM(oi.quantity) FROM OrderItem oi WHERE oi.book.id = :bookId AND oi.order.status != 'CANCELLED'")
@@ -1,5 +1,6 @@
 package com.bookstore.repository;
 
+import com.bookstore.dto.response.OrderSummaryResponse;
 import com.bookstore.entity.Order;
 import com.bookstore.entity.OrderStatus;
 import org.springframework.data.domain.Page;
@@ -11,6 +12,7 @@ import org.springframework.stereotype.Repository;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -21,12 +23,73 @@ public interface OrderRepository extends JpaRepository<Order, Long> {
     
     Page<Order> findByUserId(Long userId, Pageable pageable);
     
-    List<Order> findByUserIdOrderByCreatedAtDesc(Long userId);
-    
     List<Order> findByStatus(OrderStatus status);
     
     Page<Order> findByStatus(OrderStatus status, Pageable pageable);
     
+    // Keyset pagination on (createdAt DESC, id DESC) - no OFFSET and no count query
+    @Query("SELECT o FROM Order o ORDER BY o.createdAt DESC, o.id DESC")
+    List<Order> findFirstKeysetPage(Pageable pageable);
+
+    @Query("SELECT o FROM Order o WHERE o.createdAt < :createdAt OR (o.createdAt = :createdAt AND o.id < :id) " +
+           "ORDER BY o.createdAt DESC, o.id DESC")
+    List<Order> findKeysetPageAfter(@Param("createdAt") LocalDateTime createdAt,
+                                    @Param("id") Long id,
+                                    Pageable pageable);
+    
+    // Export walk over [start, end) in (createdAt, id) order. Customer columns come back as scalars so
+    // no User entities are loaded - their inverse one-to-one cart would cost a query each.
+    @Query("SELECT o, u.email, u.firstName, u.lastName FROM Order o JOIN o.user u " +
+           "WHERE o.createdAt >= :start AND o.createdAt < :end " +
+           "AND (o.createdAt > :afterCreatedAt OR (o.createdAt = :afterCreatedAt AND o.id > :afterId)) " +
+           "ORDER BY o.createdAt, o.id")
+    List<Object[]> findExportChunk(@Param("start") LocalDateTime start,
+                                   @Param("end") LocalDateTime end,
+                                   @Param("afterCreatedAt") LocalDateTime afterCreatedAt,
+                                   @Param("afterId") Long afterId,
+                                   Pageable pageable);
+    
+    // Second phase of paged listings - loads a page of orders with user, items and books in one round trip.
+    // The user's cart is fetched too: as the inverse side of a one-to-one it would otherwise be loaded
+    // with a separate query per user.
+    @Query("SELECT DISTINCT o FROM Order o JOIN FETCH o.user u LEFT JOIN FETCH u.shoppingCart " +
+           "LEFT JOIN FETCH o.items i LEFT JOIN FETCH i.book WHERE o.id IN :ids")
+    List<Order> findAllWithDetailsByIdIn(@Param("ids") Collection<Long> ids);
+    
+    // Summary projections for list views - one query per page plus the count, no entities loaded
+    @Query(value = "SELECT new com.bookstore.dto.response.OrderSummaryResponse(o.id, o.orderNumber, u.id, " +
+           "CONCAT(u.firstName, ' ', u.lastName), u.email, o.status, o.total, " +
+           "(SELECT COUNT(oi) FROM OrderItem oi WHERE oi.order = o), o.createdAt, o.shippedAt, o.deliveredAt) " +
+           "FROM Order o JOIN o.user u WHERE u.id = :userId",
+           countQuery = "SELECT COUNT(o) FROM Order o WHERE o.user.id = :userId")
+    Page<OrderSummaryResponse> findSummariesByUserId(@Param("userId") Long userId, Pageable pageable);
+    
+    @Query(value = "SELECT new com.bookstore.dto.response.OrderSummaryResponse(o.id, o.orderNumber, u.id, " +
+           "CONCAT(u.firstName, ' ', u.lastName), u.email, o.status, o.total, " +
+           "(SELECT COUNT(oi) FROM OrderItem oi WHERE oi.order = o), o.createdAt, o.shippedAt, o.deliveredAt) " +
+           "FROM Order o JOIN o.user u",
+           countQuery = "SELECT COUNT(o) FROM Order o")
+    Page<OrderSummaryResponse> findAllSummaries(Pageable pageable);
+    
+    @Query(value = "SELECT new com.bookstore.dto.response.OrderSummaryResponse(o.id, o.orderNumber, u.id, " +
+           "CONCAT(u.firstName, ' ', u.lastName), u.email, o.status, o.total, " +
+           "(SELECT COUNT(oi) FROM OrderItem oi WHERE oi.order = o), o.createdAt, o.shippedAt, o.deliveredAt) " +
+           "FROM Order o JOIN o.user u WHERE o.status = :status",
+           countQuery = "SELECT COUNT(o) FROM Order o WHERE o.status = :status")
+    Page<OrderSummaryResponse> findSummariesByStatus(@Param("status") OrderStatus status, Pageable pageable);
+    
+    // A customer's history by keyset on (createdAt DESC, id DESC), served by idx_orders_user_created_at_id
+    @Query("SELECT o FROM Order o WHERE o.user.id = :userId ORDER BY o.createdAt DESC, o.id DESC")
+    List<Order> findUserKeysetFirstPage(@Param("userId") Long userId, Pageable pageable);
+
+    @Query("SELECT o FROM Order o WHERE o.user.id = :userId " +
+           "AND (o.createdAt < :createdAt OR (o.createdAt = :createdAt AND o.id < :id)) " +
+           "ORDER BY o.createdAt DESC, o.id DESC")
+    List<Order> findUserKeysetPageAfter(@Param("userId") Long userId,
+                                        @Param("createdAt") LocalDateTime createdAt,
+                                        @Param("id") Long id,
+                                        Pageable pageable);
+    
     @Query("SELECT o FROM Order o LEFT JOIN FETCH o.items WHERE o.id = :id")
     Optional<Order> findByIdWithItems(@Param("id") Long id);
     
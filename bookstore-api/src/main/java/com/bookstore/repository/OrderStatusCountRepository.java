@@ -0,0 +1,32 @@
+package com.bookstore.repository;
+
+import com.bookstore.entity.OrderStatusCount;
+import com.bookstore.entity.OrderStatusCountId;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface OrderStatusCountRepository extends JpaRepository<OrderStatusCount, OrderStatusCountId> {
+
+    @Modifying
+    @Query(value = "INSERT INTO order_status_counts (status, slot, order_count) " +
+            "VALUES (:status, :slot, :delta) " +
+            "ON CONFLICT (status, slot) DO UPDATE SET " +
+            "order_count = order_status_counts.order_count + EXCLUDED.order_count",
+            nativeQuery = true)
+    void addCount(@Param("status") String status, @Param("slot") int slot, @Param("delta") long delta);
+
+    @Modifying
+    @Query(value = "INSERT INTO order_status_counts (status, slot, order_count) " +
+            "SELECT o.status, 0, COUNT(*) FROM orders o GROUP BY o.status",
+            nativeQuery = true)
+    void rebuildFromOrders();
+
+    @Query("SELECT s.status, SUM(s.orderCount) FROM OrderStatusCount s GROUP BY s.status")
+    List<Object[]> getCountsByStatus();
+}
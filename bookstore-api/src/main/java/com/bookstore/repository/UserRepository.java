@@ -3,10 +3,12 @@ package com.bookstore.repository;
 import com.bookstore.entity.Role;
 import com.bookstore.entity.User;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
 
@@ -28,4 +30,13 @@ public interface UserRepository extends JpaRepository<User, Long> {
            "OR LOWER(u.lastName) LIKE LOWER(CONCAT('%', :name, '%')) " +
            "OR LOWER(u.email) LIKE LOWER(CONCAT('%', :name, '%'))")
     List<User> searchUsers(@Param("name") String name);
+
+    // One statement, so concurrent failed logins for the same account all count
+    @Modifying
+    @Query("UPDATE User u SET u.failedLoginAttempts = u.failedLoginAttempts + 1, " +
+           "u.lockoutEndTime = CASE WHEN u.failedLoginAttempts + 1 >= :maxAttempts THEN :lockoutEnd " +
+           "ELSE u.lockoutEndTime END WHERE u.id = :id")
+    void recordFailedLogin(@Param("id") Long id,
+                           @Param("maxAttempts") int maxAttempts,
+                           @Param("lockoutEnd") LocalDateTime lockoutEnd);
 }
@@ -1,10 +1,16 @@
 package com.bookstore.security;
 
+import com.bookstore.entity.Role;
+import com.bookstore.entity.User;
+import com.bookstore.service.UserStatusCache;
+import com.bookstore.service.UserStatusCache.UserStatus;
+import io.jsonwebtoken.Claims;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.lang.NonNull;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.context.SecurityContextHolder;
@@ -22,6 +28,10 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
     private final JwtService jwtService;
     private final UserDetailsService userDetailsService;
+    private final UserStatusCache userStatusCache;
+
+    @Value("${security.jwt.stateless:false}")
+    private boolean statelessAuth;
 
     @Override
     protected void doFilterInternal(
@@ -41,12 +51,16 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         jwt = authHeader.substring(7);
         
         try {
-            userEmail = jwtService.extractUsername(jwt);
+            // Parse and verify the token once for the whole request
+            final Claims claims = jwtService.extractValidClaims(jwt);
+            userEmail = claims.getSubject();
             
             if (userEmail != null && SecurityContextHolder.getContext().getAuthentication() == null) {
-                UserDetails userDetails = this.userDetailsService.loadUserByUsername(userEmail);
+                UserDetails userDetails = statelessAuth && claims.get(JwtService.CLAIM_USER_ID) != null
+                        ? userFromClaims(claims)
+                        : this.userDetailsService.loadUserByUsername(userEmail);
                 
-                if (jwtService.isTokenValid(jwt, userDetails)) {
+                if (userDetails != null && jwtService.isTokenValid(claims, userDetails)) {
                     UsernamePasswordAuthenticationToken authToken = new UsernamePasswordAuthenticationToken(
                             userDetails,
                             null,
@@ -63,4 +77,24 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         
         filterChain.doFilter(request, response);
     }
+
+    // Builds the principal from signed claims; returns null if the user was deactivated,
+    // removed, or had their role changed since the token was issued
+    private User userFromClaims(Claims claims) {
+        Long userId = claims.get(JwtService.CLAIM_USER_ID, Long.class);
+        Role role = Role.valueOf(claims.get(JwtService.CLAIM_ROLE, String.class));
+
+        UserStatus status = userStatusCache.get(userId);
+        if (status == null || !status.active() || status.role() != role
+                || !status.email().equals(claims.getSubject())) {
+            return null;
+        }
+
+        return User.builder()
+                .id(userId)
+                .email(claims.getSubject())
+                .role(role)
+                .isActive(true)
+                .build();
+    }
 }
@@ -13,14 +13,13 @@ import com.bookstore.repository.UserRepository;
 import com.bookstore.security.JwtService;
 import lombok.RequiredArgsConstructor;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.security.authentication.AuthenticationManager;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.security.authentication.BadCredentialsException;
 import org.springframework.security.authentication.DisabledException;
 import org.springframework.security.authentication.LockedException;
-import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
-import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.time.LocalDateTime;
 
@@ -30,9 +29,9 @@ public class AuthService {
 
     private final UserRepository userRepository;
     private final ShoppingCartRepository shoppingCartRepository;
-    private final PasswordEncoder passwordEncoder;
+    private final PasswordHashingService passwordHashingService;
     private final JwtService jwtService;
-    private final AuthenticationManager authenticationManager;
+    private final TransactionTemplate transactionTemplate;
 
     @Value("${security.account-lockout.max-attempts:5}")
     private int maxLoginAttempts;
@@ -40,34 +39,43 @@ public class AuthService {
     @Value("${security.account-lockout.duration-minutes:15}")
     private int lockoutDurationMinutes;
 
-    @Transactional
+    // BCrypt runs with no transaction open, so a burst of registrations cannot hold pool connections
+    // while they queue for the hashing pool; only the insert gets a (short) transaction
     public AuthResponse register(RegisterRequest request) {
         // Check if email already exists
         if (userRepository.existsByEmail(request.getEmail())) {
             throw new DuplicateResourceException("Email already registered: " + request.getEmail());
         }
 
-        // Create new user
-        User user = User.builder()
-                .email(request.getEmail())
-                .passwordHash(passwordEncoder.encode(request.getPassword()))
-                .firstName(request.getFirstName())
-                .lastName(request.getLastName())
-                .phone(request.getPhone())
-                .shippingAddress(request.getShippingAddress())
-                .billingAddress(request.getBillingAddress())
-                .role(Role.CUSTOMER)
-                .isActive(true)
-                .failedLoginAttempts(0)
-                .build();
-
-        user = userRepository.save(user);
+        String passwordHash = passwordHashingService.encode(request.getPassword());
 
-        // Create shopping cart for the user
-        ShoppingCart cart = ShoppingCart.builder()
-                .user(user)
-                .build();
-        shoppingCartRepository.save(cart);
+        User user;
+        try {
+            user = transactionTemplate.execute(status -> {
+                // Create new user
+                User created = userRepository.save(User.builder()
+                        .email(request.getEmail())
+                        .passwordHash(passwordHash)
+                        .firstName(request.getFirstName())
+                        .lastName(request.getLastName())
+                        .phone(request.getPhone())
+                        .shippingAddress(request.getShippingAddress())
+                        .billingAddress(request.getBillingAddress())
+                        .role(Role.CUSTOMER)
+                        .isActive(true)
+                        .failedLoginAttempts(0)
+                        .build());
+
+                // Create shopping cart for the user
+                shoppingCartRepository.save(ShoppingCart.builder()
+                        .user(created)
+                        .build());
+                return created;
+            });
+        } catch (DataIntegrityViolationException e) {
+            // Registered by a concurrent request while this one was hashing
+            throw new DuplicateResourceException("Email already registered: " + request.getEmail());
+        }
 
         // Generate tokens
         String accessToken = jwtService.generateToken(user);
@@ -82,7 +90,8 @@ public class AuthService {
                 .build();
     }
 
-    @Transactional
+    // Same shape as register: a short read, the BCrypt verify (and rehash) with no transaction open,
+    // then a short write for the login bookkeeping
     public AuthResponse login(LoginRequest request) {
         User user = userRepository.findByEmail(request.getEmail())
                 .orElseThrow(() -> new BadCredentialsException("Invalid email or password"));
@@ -97,40 +106,44 @@ public class AuthService {
             throw new DisabledException("Account is disabled. Please contact support.");
         }
 
-        try {
-            authenticationManager.authenticate(
-                    new UsernamePasswordAuthenticationToken(request.getEmail(), request.getPassword())
-            );
+        // Verified on the bounded hashing pool rather than through the AuthenticationManager
+        if (!passwordHashingService.matches(request.getPassword(), user.getPasswordHash())) {
+            transactionTemplate.executeWithoutResult(status -> userRepository.recordFailedLogin(
+                    user.getId(), maxLoginAttempts, LocalDateTime.now().plusMinutes(lockoutDurationMinutes)));
+            throw new BadCredentialsException("Invalid email or password");
+        }
 
-            // Reset failed attempts on successful login
-            user.setFailedLoginAttempts(0);
-            user.setLockoutEndTime(null);
-            user.setLastLoginAt(LocalDateTime.now());
-            userRepository.save(user);
-
-            // Generate tokens
-            String accessToken = jwtService.generateToken(user);
-            String refreshToken = jwtService.generateRefreshToken(user);
-
-            return AuthResponse.builder()
-                    .accessToken(accessToken)
-                    .refreshToken(refreshToken)
-                    .tokenType("Bearer")
-                    .expiresIn(jwtService.getJwtExpiration())
-                    .user(UserResponse.fromEntity(user))
-                    .build();
-
-        } catch (BadCredentialsException e) {
-            // Increment failed login attempts
-            user.setFailedLoginAttempts(user.getFailedLoginAttempts() + 1);
-
-            if (user.getFailedLoginAttempts() >= maxLoginAttempts) {
-                user.setLockoutEndTime(LocalDateTime.now().plusMinutes(lockoutDurationMinutes));
+        // Transparently rehash at the current target cost while we have the plain password
+        String upgradedHash = passwordHashingService.needsUpgrade(user.getPasswordHash())
+                ? passwordHashingService.encode(request.getPassword())
+                : null;
+
+        User loggedIn = transactionTemplate.execute(status -> {
+            User current = userRepository.findById(user.getId())
+                    .orElseThrow(() -> new BadCredentialsException("Invalid email or password"));
+            // Only if nobody changed the password while we were hashing
+            if (upgradedHash != null && current.getPasswordHash().equals(user.getPasswordHash())) {
+                current.setPasswordHash(upgradedHash);
             }
 
-            userRepository.save(user);
-            throw e;
-        }
+            // Reset failed attempts on successful login
+            current.setFailedLoginAttempts(0);
+            current.setLockoutEndTime(null);
+            current.setLastLoginAt(LocalDateTime.now());
+            return userRepository.save(current);
+        });
+
+        // Generate tokens
+        String accessToken = jwtService.generateToken(loggedIn);
+        String refreshToken = jwtService.generateRefreshToken(loggedIn);
+
+        return AuthResponse.builder()
+                .accessToken(accessToken)
+                .refreshToken(refreshToken)
+                .tokenType("Bearer")
+                .expiresIn(jwtService.getJwtExpiration())
+                .user(UserResponse.fromEntity(loggedIn))
+                .build();
     }
 
     @Transactional
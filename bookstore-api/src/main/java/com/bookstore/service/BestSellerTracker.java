@@ -0,0 +1,124 @@
+package com.bookstore.service;
+
+import com.bookstore.entity.BookSales;
+import com.bookstore.repository.BookSalesRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.TreeSet;
+import java.util.concurrent.locks.ReentrantLock;
+
+// Optional in-memory view of units sold per book, fed by committed order events.
+// The books are kept ranked as sales arrive, so top-K only walks the first k entries.
+@Component
+@RequiredArgsConstructor
+public class BestSellerTracker {
+
+    // Best seller first; ties by book id so every book has exactly one slot
+    private static final Comparator<Map.Entry<Long, Long>> RANKING =
+            Map.Entry.<Long, Long>comparingByValue().reversed().thenComparing(Map.Entry.comparingByKey());
+
+    private final BookSalesRepository bookSalesRepository;
+
+    @Value("${bookstore.reports.best-sellers.tracker.enabled:false}")
+    private boolean enabled;
+
+    // Both only touched under the lock; books with no net sales are left out of the ranking
+    private final Map<Long, Long> unitsByBook = new HashMap<>();
+    private final NavigableSet<Map.Entry<Long, Long>> ranking = new TreeSet<>(RANKING);
+
+    private boolean loaded = false;
+    // Bumped under the lock by every load and reset, so a sale can tell whether the counters changed
+    // under it; volatile so recording a sale never waits on a load
+    private volatile long generation = 0;
+    private final ReentrantLock lock = new ReentrantLock();
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void record(Long bookId, long units) {
+        if (!enabled) {
+            return;
+        }
+        long recordedAt = generation;
+        TransactionHooks.afterCommit(() -> {
+            lock.lock();
+            try {
+                if (!loaded) {
+                    // The next load reads book_sales after this commit
+                    return;
+                }
+                if (generation != recordedAt) {
+                    // Loaded while the order was in flight: the load may or may not have seen this
+                    // sale, so only another load after the commit can be trusted
+                    loaded = false;
+                    return;
+                }
+                add(bookId, units);
+            } finally {
+                lock.unlock();
+            }
+        });
+    }
+
+    // Drops the in-memory state so the next read reloads it from book_sales
+    public void reset() {
+        TransactionHooks.afterCommit(() -> {
+            lock.lock();
+            try {
+                loaded = false;
+                generation++;
+            } finally {
+                lock.unlock();
+            }
+        });
+    }
+
+    // Returns (bookId, unitsSold) pairs, best seller first
+    public List<Map.Entry<Long, Long>> topK(int k) {
+        // ReentrantLock rather than synchronized so virtual threads don't pin their carrier during the load
+        lock.lock();
+        try {
+            if (!loaded) {
+                unitsByBook.clear();
+                ranking.clear();
+                for (BookSales sales : bookSalesRepository.findAll()) {
+                    add(sales.getBookId(), sales.getUnitsSold());
+                }
+                loaded = true;
+                generation++;
+            }
+
+            List<Map.Entry<Long, Long>> top = new ArrayList<>(Math.min(k, ranking.size()));
+            Iterator<Map.Entry<Long, Long>> it = ranking.iterator();
+            while (top.size() < k && it.hasNext()) {
+                top.add(it.next());
+            }
+            return top;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Moves the book to its new place in the ranking - O(log n) per sale instead of a rescan per read
+    private void add(Long bookId, long units) {
+        Long before = unitsByBook.get(bookId);
+        long after = (before != null ? before : 0) + units;
+        if (before != null && before > 0) {
+            ranking.remove(Map.entry(bookId, before));
+        }
+        unitsByBook.put(bookId, after);
+        if (after > 0) {
+            ranking.add(Map.entry(bookId, after));
+        }
+    }
+}
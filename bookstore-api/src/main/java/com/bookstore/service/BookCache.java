@@ -0,0 +1,83 @@
+package com.bookstore.service;
+
+import com.bookstore.dto.response.BookResponse;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+// Read-through cache of single-book responses for product detail pages.
+// ISBN lookups resolve to an id first, so evicting by id is enough to invalidate both paths.
+@Component
+public class BookCache {
+
+    private final Cache<Long, BookResponse> booksById;
+    private final Cache<String, Long> idsByIsbn;
+    // Bumped before every eviction, so an ISBN load that overlapped one does not cache what it read
+    private final AtomicLong evictions = new AtomicLong();
+
+    public BookCache(
+            MeterRegistry meterRegistry,
+            @Value("${bookstore.cache.books.max-size:10000}") long maxSize,
+            @Value("${bookstore.cache.books.ttl-seconds:300}") long ttlSeconds) {
+        this.booksById = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+                .recordStats()
+                .build();
+        this.idsByIsbn = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+                .recordStats()
+                .build();
+
+        // Hit/miss/eviction counters are published as cache.* meters
+        CaffeineCacheMetrics.monitor(meterRegistry, booksById, "books.byId");
+        CaffeineCacheMetrics.monitor(meterRegistry, idsByIsbn, "books.byIsbn");
+    }
+
+    public BookResponse getById(Long id, Supplier<BookResponse> loader) {
+        return booksById.get(id, key -> loader.get());
+    }
+
+    public BookResponse getByIsbn(String isbn, Supplier<BookResponse> loader) {
+        Long id = idsByIsbn.getIfPresent(isbn);
+        if (id != null) {
+            BookResponse cached = booksById.getIfPresent(id);
+            // The ISBN may have been changed since the mapping was cached
+            if (cached != null && isbn.equals(cached.getIsbn())) {
+                return cached;
+            }
+        }
+
+        // Keyed by ISBN, so Caffeine's own load-vs-invalidate ordering (getById) does not apply here
+        long stamp = evictions.get();
+        BookResponse book = loader.get();
+        booksById.asMap().compute(book.getId(), (key, current) ->
+                current == null && evictions.get() == stamp ? book : current);
+        idsByIsbn.put(isbn, book.getId());
+        return book;
+    }
+
+    // Evicts after commit so a concurrent read cannot re-cache the pre-update state
+    public void evict(Long id) {
+        TransactionHooks.afterCommit(() -> {
+            evictions.incrementAndGet();
+            booksById.invalidate(id);
+        });
+    }
+
+    public void evictAll() {
+        TransactionHooks.afterCommit(() -> {
+            evictions.incrementAndGet();
+            booksById.invalidateAll();
+            idsByIsbn.invalidateAll();
+        });
+    }
+}
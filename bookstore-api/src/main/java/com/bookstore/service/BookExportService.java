@@ -0,0 +1,115 @@
+package com.bookstore.service;
+
+import com.bookstore.dto.request.BookRequest;
+import com.bookstore.entity.Book;
+import com.bookstore.repository.BookRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+// Catalog export in the same shape BookImportService reads, so an export can be imported elsewhere.
+// Books come from a forward-only cursor and are written and detached in chunks, so memory use does
+// not grow with the size of the catalog.
+@Service
+@RequiredArgsConstructor
+public class BookExportService {
+
+    private static final int CHUNK_SIZE = 500;
+
+    private static final String[] CSV_HEADER = {
+            "isbn", "title", "author", "description", "publisher", "publicationYear", "price", "quantity",
+            "bookCondition", "imageUrl", "isRare", "categoryIds"};
+
+    private final BookRepository bookRepository;
+    private final ObjectMapper objectMapper;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Transactional(readOnly = true)
+    public void exportBooks(OutputStream body, DataFormat format) throws IOException {
+        Writer out = new BufferedWriter(new OutputStreamWriter(body, StandardCharsets.UTF_8));
+        if (format == DataFormat.CSV) {
+            CsvWriter.writeRow(out, (Object[]) CSV_HEADER);
+        }
+
+        try (Stream<Book> books = bookRepository.streamAll()) {
+            List<Book> chunk = new ArrayList<>(CHUNK_SIZE);
+            Iterator<Book> iterator = books.iterator();
+            while (iterator.hasNext()) {
+                chunk.add(iterator.next());
+                if (chunk.size() == CHUNK_SIZE || !iterator.hasNext()) {
+                    writeChunk(out, chunk, format);
+                    chunk.clear();
+                    // Drop the written books from the persistence context so it stays small
+                    entityManager.clear();
+                }
+            }
+        }
+        out.flush();
+    }
+
+    private void writeChunk(Writer out, List<Book> books, DataFormat format) throws IOException {
+        // One query for the chunk's categories instead of initializing each book's collection
+        Map<Long, Set<Long>> categoryIds = new HashMap<>();
+        for (Object[] row : bookRepository.findCategoryIdsByBookIdIn(
+                books.stream().map(Book::getId).collect(Collectors.toList()))) {
+            categoryIds.computeIfAbsent((Long) row[0], id -> new TreeSet<>()).add((Long) row[1]);
+        }
+
+        for (Book book : books) {
+            Set<Long> ids = categoryIds.getOrDefault(book.getId(), Set.of());
+            if (format == DataFormat.CSV) {
+                CsvWriter.writeRow(out,
+                        book.getIsbn(),
+                        book.getTitle(),
+                        book.getAuthor(),
+                        book.getDescription(),
+                        book.getPublisher(),
+                        book.getPublicationYear(),
+                        book.getPrice(),
+                        book.getQuantity(),
+                        book.getBookCondition(),
+                        book.getImageUrl(),
+                        book.getIsRare(),
+                        ids.stream().map(String::valueOf).collect(Collectors.joining(";")));
+            } else {
+                BookRequest row = BookRequest.builder()
+                        .isbn(book.getIsbn())
+                        .title(book.getTitle())
+                        .author(book.getAuthor())
+                        .description(book.getDescription())
+                        .publisher(book.getPublisher())
+                        .publicationYear(book.getPublicationYear())
+                        .price(book.getPrice())
+                        .quantity(book.getQuantity())
+                        .bookCondition(book.getBookCondition())
+                        .imageUrl(book.getImageUrl())
+                        .isRare(book.getIsRare())
+                        .categoryIds(ids)
+                        .build();
+                out.write(objectMapper.writeValueAsString(row));
+                out.write('\n');
+            }
+        }
+    }
+}
@@ -0,0 +1,191 @@
+package com.bookstore.service;
+
+import com.bookstore.dto.request.BookRequest;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+// Reads an import body one row at a time so the file is never held in memory.
+// CSV: a header row of BookRequest field names, categoryIds separated by ';'.
+// NDJSON: one BookRequest JSON object per line.
+final class BookImportReader {
+
+    record Row(long number, BookRequest request, String error) {
+    }
+
+    // Longest row accepted. Without a limit a quote that is never closed would buffer the rest of
+    // the upload as one field.
+    static final int MAX_ROW_CHARS = 1 << 20;
+
+    private final BufferedReader in;
+    private final ObjectMapper objectMapper;
+    private final boolean csv;
+    private List<String> header;
+    private long number = 0;
+
+    private BookImportReader(Reader in, ObjectMapper objectMapper, boolean csv) {
+        this.in = new BufferedReader(in);
+        this.objectMapper = objectMapper;
+        this.csv = csv;
+    }
+
+    static BookImportReader csv(Reader in, ObjectMapper objectMapper) {
+        return new BookImportReader(in, objectMapper, true);
+    }
+
+    static BookImportReader ndjson(Reader in, ObjectMapper objectMapper) {
+        return new BookImportReader(in, objectMapper, false);
+    }
+
+    // Returns the next non-blank row, or null at end of input
+    Row next() throws IOException {
+        return csv ? nextCsv() : nextNdjson();
+    }
+
+    private Row nextNdjson() throws IOException {
+        String line;
+        while ((line = readLine()) != null) {
+            number++;
+            if (line.isBlank()) {
+                continue;
+            }
+            try {
+                return new Row(number, objectMapper.readValue(line, BookRequest.class), null);
+            } catch (JsonProcessingException e) {
+                return new Row(number, null, "Invalid JSON: " + e.getOriginalMessage());
+            }
+        }
+        return null;
+    }
+
+    private Row nextCsv() throws IOException {
+        if (header == null) {
+            header = readRecord();
+            number++;
+            if (header == null) {
+                return null;
+            }
+            header.replaceAll(String::trim);
+        }
+
+        List<String> record;
+        while ((record = readRecord()) != null) {
+            number++;
+            if (record.size() == 1 && record.get(0).isBlank()) {
+                continue;
+            }
+            if (record.size() > header.size()) {
+                return new Row(number, null, "Expected at most " + header.size() + " columns but found " + record.size());
+            }
+
+            Map<String, Object> values = new LinkedHashMap<>();
+            for (int i = 0; i < record.size(); i++) {
+                String value = record.get(i).trim();
+                if (value.isEmpty()) {
+                    continue;
+                }
+                if ("categoryIds".equals(header.get(i))) {
+                    List<String> ids = new ArrayList<>();
+                    for (String id : value.split(";")) {
+                        if (!id.isBlank()) {
+                            ids.add(id.trim());
+                        }
+                    }
+                    values.put("categoryIds", ids);
+                } else {
+                    values.put(header.get(i), value);
+                }
+            }
+
+            try {
+                return new Row(number, objectMapper.convertValue(values, BookRequest.class), null);
+            } catch (IllegalArgumentException e) {
+                Throwable cause = e.getCause() instanceof JsonProcessingException json ? json : e;
+                String message = cause instanceof JsonProcessingException json ? json.getOriginalMessage() : cause.getMessage();
+                return new Row(number, null, "Invalid value: " + message);
+            }
+        }
+        return null;
+    }
+
+    private String readLine() throws IOException {
+        StringBuilder line = new StringBuilder();
+        boolean any = false;
+        int c;
+        while ((c = in.read()) != -1) {
+            any = true;
+            if (c == '\n') {
+                break;
+            }
+            if (line.length() == MAX_ROW_CHARS) {
+                throw new IOException("Line " + (number + 1) + " is longer than " + MAX_ROW_CHARS + " characters");
+            }
+            line.append((char) c);
+        }
+        if (!any) {
+            return null;
+        }
+        int end = line.length();
+        if (end > 0 && line.charAt(end - 1) == '\r') {
+            line.setLength(end - 1);
+        }
+        return line.toString();
+    }
+
+    // RFC 4180 record: commas separate fields, double quotes may wrap fields containing commas,
+    // quotes or line breaks, and "" inside a quoted field is a literal quote
+    private List<String> readRecord() throws IOException {
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        boolean any = false;
+        int length = 0;
+
+        int c;
+        while ((c = in.read()) != -1) {
+            any = true;
+            if (++length > MAX_ROW_CHARS) {
+                throw new IOException("Row " + (number + 1) + " is longer than " + MAX_ROW_CHARS + " characters" +
+                        (quoted ? " - check for a quote that is never closed" : ""));
+            }
+            if (quoted) {
+                if (c == '"') {
+                    in.mark(1);
+                    int next = in.read();
+                    if (next == '"') {
+                        field.append('"');
+                    } else {
+                        quoted = false;
+                        if (next != -1) {
+                            in.reset();
+                        }
+                    }
+                } else {
+                    field.append((char) c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else if (c == '\n') {
+                break;
+            } else if (c != '\r') {
+                field.append((char) c);
+            }
+        }
+
+        if (!any) {
+            return null;
+        }
+        fields.add(field.toString());
+        return fields;
+    }
+}
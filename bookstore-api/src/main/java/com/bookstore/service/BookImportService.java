@@ -0,0 +1,308 @@
+package com.bookstore.service;
+
+import com.bookstore.dto.request.BookRequest;
+import com.bookstore.dto.response.BookImportResponse;
+import com.bookstore.dto.response.BookImportResponse.RowError;
+import com.bookstore.entity.Book;
+import com.bookstore.entity.BookCondition;
+import com.bookstore.exception.BookstoreExceptions.*;
+import com.bookstore.repository.BookRepository;
+import com.bookstore.repository.CategoryRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.Charset;
+import java.math.BigDecimal;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+// Bulk catalog import. Rows are streamed from the request body and written in chunks: one set-based
+// ISBN lookup, one category lookup, one multi-row book insert and a batch of category links per chunk,
+// each chunk in its own transaction so a bad chunk never rolls back the ones before it.
+@Service
+@Slf4j
+public class BookImportService {
+
+    // The whole chunk in one statement: one array per column, unnested into rows. RETURNING reports
+    // exactly the rows that went in, so ISBNs taken by another writer meanwhile are told apart from
+    // ours no matter how the driver reports counts.
+    private static final String INSERT_BOOKS_SQL =
+            "INSERT INTO books (id, isbn, title, author, description, publisher, publication_year, price, quantity, " +
+            "book_condition, image_url, is_rare, created_at, updated_at) " +
+            "SELECT nextval('books_seq'), r.isbn, r.title, r.author, r.description, r.publisher, r.publication_year, " +
+            "r.price, r.quantity, r.book_condition, r.image_url, r.is_rare, ?, ? " +
+            "FROM unnest(?::varchar[], ?::varchar[], ?::varchar[], ?::text[], ?::varchar[], ?::int[], ?::numeric[], " +
+            "?::int[], ?::varchar[], ?::varchar[], ?::boolean[]) " +
+            "AS r(isbn, title, author, description, publisher, publication_year, price, quantity, book_condition, " +
+            "image_url, is_rare) " +
+            "ON CONFLICT (isbn) DO NOTHING RETURNING id, isbn";
+    private static final String INSERT_BOOK_CATEGORY_SQL =
+            "INSERT INTO book_categories (book_id, category_id) VALUES (?, ?)";
+
+    private static final int MAX_CHUNK_SIZE = 10000;
+    private static final int MAX_REPORTED_ERRORS = 1000;
+
+    private final BookRepository bookRepository;
+    private final CategoryRepository categoryRepository;
+    private final BookSearchIndex bookSearchIndex;
+    private final RareBookIndex rareBookIndex;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectMapper objectMapper;
+    private final Validator validator;
+    private final int defaultChunkSize;
+
+    public BookImportService(
+            BookRepository bookRepository,
+            CategoryRepository categoryRepository,
+            BookSearchIndex bookSearchIndex,
+            RareBookIndex rareBookIndex,
+            JdbcTemplate jdbcTemplate,
+            PlatformTransactionManager transactionManager,
+            ObjectMapper objectMapper,
+            Validator validator,
+            @Value("${bookstore.import.chunk-size:1000}") int defaultChunkSize) {
+        this.bookRepository = bookRepository;
+        this.categoryRepository = categoryRepository;
+        this.bookSearchIndex = bookSearchIndex;
+        this.rareBookIndex = rareBookIndex;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.objectMapper = objectMapper;
+        this.validator = validator;
+        this.defaultChunkSize = defaultChunkSize;
+    }
+
+    public BookImportResponse importBooks(InputStream body, Charset charset, DataFormat format, Integer chunkSize) {
+        int size = Math.min(Math.max(chunkSize != null ? chunkSize : defaultChunkSize, 1), MAX_CHUNK_SIZE);
+        InputStreamReader reader = new InputStreamReader(body, charset);
+        BookImportReader rows = format == DataFormat.CSV
+                ? BookImportReader.csv(reader, objectMapper)
+                : BookImportReader.ndjson(reader, objectMapper);
+
+        ImportRun run = new ImportRun();
+        long started = System.nanoTime();
+        try {
+            List<BookImportReader.Row> chunk = new ArrayList<>(size);
+            BookImportReader.Row row;
+            while ((row = rows.next()) != null) {
+                run.rowsRead++;
+                chunk.add(row);
+                if (chunk.size() == size) {
+                    importChunk(chunk, run);
+                    chunk.clear();
+                }
+            }
+            if (!chunk.isEmpty()) {
+                importChunk(chunk, run);
+            }
+        } catch (IOException e) {
+            throw new BadRequestException("Could not read import after " + run.rowsRead + " rows: " + e.getMessage());
+        }
+
+        long durationMs = Math.max((System.nanoTime() - started) / 1_000_000, 1);
+        double booksPerSecond = run.imported * 1000.0 / durationMs;
+        log.info("Book import finished: {} rows read, {} imported, {} failed in {} ms ({} books/s)",
+                run.rowsRead, run.imported, run.failed, durationMs, Math.round(booksPerSecond));
+
+        return BookImportResponse.builder()
+                .rowsRead(run.rowsRead)
+                .imported(run.imported)
+                .failed(run.failed)
+                .durationMs(durationMs)
+                .booksPerSecond(booksPerSecond)
+                .errors(run.errors)
+                .errorsTruncated(run.failed > run.errors.size())
+                .build();
+    }
+
+    private void importChunk(List<BookImportReader.Row> chunk, ImportRun run) {
+        List<BookImportReader.Row> candidates = new ArrayList<>(chunk.size());
+        for (BookImportReader.Row row : chunk) {
+            if (row.error() != null) {
+                run.fail(row, row.error());
+                continue;
+            }
+            Set<ConstraintViolation<BookRequest>> violations = validator.validate(row.request());
+            if (!violations.isEmpty()) {
+                run.fail(row, violations.stream()
+                        .map(ConstraintViolation::getMessage)
+                        .sorted()
+                        .collect(Collectors.joining("; ")));
+                continue;
+            }
+            candidates.add(row);
+        }
+        if (candidates.isEmpty()) {
+            return;
+        }
+
+        // One lookup each for ISBNs and categories instead of one per row
+        Set<String> existingIsbns = new HashSet<>(bookRepository.findExistingIsbns(
+                candidates.stream().map(row -> row.request().getIsbn()).collect(Collectors.toSet())));
+        Set<Long> unknownCategoryIds = candidates.stream()
+                .filter(row -> row.request().getCategoryIds() != null)
+                .flatMap(row -> row.request().getCategoryIds().stream())
+                .filter(id -> !run.knownCategoryIds.contains(id))
+                .collect(Collectors.toSet());
+        if (!unknownCategoryIds.isEmpty()) {
+            run.knownCategoryIds.addAll(categoryRepository.findExistingIds(unknownCategoryIds));
+        }
+
+        List<BookImportReader.Row> accepted = new ArrayList<>(candidates.size());
+        Set<String> chunkIsbns = new HashSet<>();
+        for (BookImportReader.Row row : candidates) {
+            BookRequest request = row.request();
+            if (existingIsbns.contains(request.getIsbn()) || !chunkIsbns.add(request.getIsbn())) {
+                run.fail(row, "Book already exists with ISBN: " + request.getIsbn());
+                continue;
+            }
+            Long missingCategory = request.getCategoryIds() == null ? null : request.getCategoryIds().stream()
+                    .filter(id -> !run.knownCategoryIds.contains(id))
+                    .findFirst()
+                    .orElse(null);
+            if (missingCategory != null) {
+                run.fail(row, "Category not found with id: " + missingCategory);
+                continue;
+            }
+            accepted.add(row);
+        }
+        if (accepted.isEmpty()) {
+            return;
+        }
+
+        List<BookImportReader.Row> conflicts = new ArrayList<>();
+        try {
+            List<BookImportReader.Row> inserted = transactionTemplate.execute(status -> insert(accepted, conflicts));
+            run.imported += inserted.size();
+            for (BookImportReader.Row row : conflicts) {
+                run.fail(row, "Book already exists with ISBN: " + row.request().getIsbn());
+            }
+        } catch (RuntimeException e) {
+            log.warn("Book import chunk of {} rows failed: {}", accepted.size(), e.getMessage());
+            for (BookImportReader.Row row : accepted) {
+                run.fail(row, "Could not save book: " + e.getMessage());
+            }
+        }
+    }
+
+    private List<BookImportReader.Row> insert(List<BookImportReader.Row> accepted, List<BookImportReader.Row> conflicts) {
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        int size = accepted.size();
+        String[] isbns = new String[size];
+        String[] titles = new String[size];
+        String[] authors = new String[size];
+        String[] descriptions = new String[size];
+        String[] publishers = new String[size];
+        Integer[] publicationYears = new Integer[size];
+        BigDecimal[] prices = new BigDecimal[size];
+        Integer[] quantities = new Integer[size];
+        String[] conditions = new String[size];
+        String[] imageUrls = new String[size];
+        Boolean[] rare = new Boolean[size];
+        for (int i = 0; i < size; i++) {
+            BookRequest request = accepted.get(i).request();
+            isbns[i] = request.getIsbn();
+            titles[i] = request.getTitle();
+            authors[i] = request.getAuthor();
+            descriptions[i] = request.getDescription();
+            publishers[i] = request.getPublisher();
+            publicationYears[i] = request.getPublicationYear();
+            prices[i] = request.getPrice();
+            quantities[i] = request.getQuantity();
+            conditions[i] = (request.getBookCondition() != null ? request.getBookCondition() : BookCondition.NEW).name();
+            imageUrls[i] = request.getImageUrl();
+            rare[i] = request.getIsRare() != null ? request.getIsRare() : false;
+        }
+
+        Map<String, Long> idsByIsbn = new HashMap<>();
+        jdbcTemplate.query(connection -> {
+            PreparedStatement statement = connection.prepareStatement(INSERT_BOOKS_SQL);
+            statement.setTimestamp(1, now);
+            statement.setTimestamp(2, now);
+            statement.setArray(3, connection.createArrayOf("varchar", isbns));
+            statement.setArray(4, connection.createArrayOf("varchar", titles));
+            statement.setArray(5, connection.createArrayOf("varchar", authors));
+            statement.setArray(6, connection.createArrayOf("text", descriptions));
+            statement.setArray(7, connection.createArrayOf("varchar", publishers));
+            statement.setArray(8, connection.createArrayOf("int4", publicationYears));
+            statement.setArray(9, connection.createArrayOf("numeric", prices));
+            statement.setArray(10, connection.createArrayOf("int4", quantities));
+            statement.setArray(11, connection.createArrayOf("varchar", conditions));
+            statement.setArray(12, connection.createArrayOf("varchar", imageUrls));
+            statement.setArray(13, connection.createArrayOf("bool", rare));
+            return statement;
+        }, (ResultSet rs) -> {
+            idsByIsbn.put(rs.getString(2), rs.getLong(1));
+        });
+
+        // A missing ISBN was taken by another writer after our duplicate check
+        List<BookImportReader.Row> inserted = new ArrayList<>(size);
+        for (BookImportReader.Row row : accepted) {
+            if (idsByIsbn.containsKey(row.request().getIsbn())) {
+                inserted.add(row);
+            } else {
+                conflicts.add(row);
+            }
+        }
+
+        List<Object[]> categoryArgs = new ArrayList<>();
+        for (BookImportReader.Row row : inserted) {
+            BookRequest request = row.request();
+            Long bookId = idsByIsbn.get(request.getIsbn());
+            if (request.getCategoryIds() != null) {
+                for (Long categoryId : request.getCategoryIds()) {
+                    categoryArgs.add(new Object[]{bookId, categoryId});
+                }
+            }
+            bookSearchIndex.put(Book.builder()
+                    .id(bookId)
+                    .isbn(request.getIsbn())
+                    .title(request.getTitle())
+                    .author(request.getAuthor())
+                    .build());
+            if (Boolean.TRUE.equals(request.getIsRare())) {
+                rareBookIndex.put(bookId, true);
+            }
+        }
+        if (!categoryArgs.isEmpty()) {
+            jdbcTemplate.batchUpdate(INSERT_BOOK_CATEGORY_SQL, categoryArgs);
+        }
+        return inserted;
+    }
+
+    private static final class ImportRun {
+        private long rowsRead;
+        private long imported;
+        private long failed;
+        private final List<RowError> errors = new ArrayList<>();
+        // Category ids confirmed to exist, carried across chunks
+        private final Set<Long> knownCategoryIds = new HashSet<>();
+
+        void fail(BookImportReader.Row row, String message) {
+            failed++;
+            if (errors.size() < MAX_REPORTED_ERRORS) {
+                errors.add(new RowError(row.number(), row.request() != null ? row.request().getIsbn() : null, message));
+            }
+        }
+    }
+}
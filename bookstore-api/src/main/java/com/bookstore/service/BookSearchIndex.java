@@ -0,0 +1,244 @@
+package com.bookstore.service;
+
+import com.bookstore.entity.Book;
+import com.bookstore.repository.BookRepository;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+
+// In-memory trigram index over book title, author and ISBN.
+// Answers the same substring match as BookRepository.searchBooks without scanning the books table.
+// Changes made through this instance apply on commit; the index is rebuilt periodically to pick up
+// changes made through other instances.
+@Component
+@Slf4j
+public class BookSearchIndex {
+
+    private static final int GRAM_SIZE = 3;
+
+    // Separates fields so a keyword can never match across title/author/isbn boundaries
+    private static final char FIELD_SEPARATOR = '\u0000';
+
+    private final BookRepository bookRepository;
+    private final boolean enabled;
+    private final long refreshSeconds;
+    private final ScheduledExecutorService refresher;
+
+    // Guards swapping in a rebuilt index and the changes to replay onto it
+    private final ReentrantLock lock = new ReentrantLock();
+
+    // null until the first build
+    private volatile Index index;
+
+    // Local changes committed while a rebuild is reading the table; null when no rebuild is running
+    private List<Consumer<Index>> replay;
+
+    public BookSearchIndex(
+            BookRepository bookRepository,
+            @Value("${bookstore.search.index.enabled:true}") boolean enabled,
+            @Value("${bookstore.search.index.refresh-seconds:300}") long refreshSeconds) {
+        this.bookRepository = bookRepository;
+        this.enabled = enabled;
+        this.refreshSeconds = refreshSeconds;
+        this.refresher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "book-search-index-refresh");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+        rebuild();
+        refresher.scheduleWithFixedDelay(this::rebuild, refreshSeconds, refreshSeconds, TimeUnit.SECONDS);
+    }
+
+    @PreDestroy
+    void stop() throws InterruptedException {
+        refresher.shutdown();
+        refresher.awaitTermination(10, TimeUnit.SECONDS);
+    }
+
+    // Builds a new index beside the current one, which keeps answering searches until the swap
+    void rebuild() {
+        lock.lock();
+        try {
+            replay = new ArrayList<>();
+        } finally {
+            lock.unlock();
+        }
+
+        Index rebuilt = new Index();
+        try {
+            for (Object[] row : bookRepository.findSearchableFields()) {
+                rebuilt.index((Long) row[0], (String) row[1], (String) row[2], (String) row[3]);
+            }
+        } catch (RuntimeException e) {
+            // Never let an exception cancel the scheduled task; the previous index stays in use
+            log.warn("Could not rebuild the book search index: {}", e.getMessage());
+            lock.lock();
+            try {
+                replay = null;
+            } finally {
+                lock.unlock();
+            }
+            return;
+        }
+
+        boolean first;
+        lock.lock();
+        try {
+            // The rows may have been read before these commits
+            replay.forEach(change -> change.accept(rebuilt));
+            replay = null;
+            first = index == null;
+            index = rebuilt;
+        } finally {
+            lock.unlock();
+        }
+        if (first) {
+            log.info("Book search index built with {} books and {} trigrams",
+                    rebuilt.documents.size(), rebuilt.postings.size());
+        }
+    }
+
+    // Returns matching book ids (newest first), or empty if the index cannot answer this keyword
+    public Optional<List<Long>> search(String keyword) {
+        Index current = index;
+        if (current == null || keyword == null) {
+            return Optional.empty();
+        }
+
+        String normalized = keyword.toLowerCase(Locale.ROOT);
+        if (normalized.length() < GRAM_SIZE) {
+            // Too short to form a trigram - let the database handle it
+            return Optional.empty();
+        }
+
+        // Walk the smallest posting list and verify each candidate against the full text
+        Set<Long> smallest = null;
+        for (String gram : grams(normalized)) {
+            Set<Long> ids = current.postings.get(gram);
+            if (ids == null) {
+                return Optional.of(List.of());
+            }
+            if (smallest == null || ids.size() < smallest.size()) {
+                smallest = ids;
+            }
+        }
+
+        List<Long> matches = new ArrayList<>();
+        for (Long id : smallest) {
+            String text = current.documents.get(id);
+            if (text != null && text.contains(normalized)) {
+                matches.add(id);
+            }
+        }
+        matches.sort(Comparator.reverseOrder());
+        return Optional.of(matches);
+    }
+
+    public void put(Book book) {
+        if (!enabled) {
+            return;
+        }
+        Long id = book.getId();
+        String title = book.getTitle();
+        String author = book.getAuthor();
+        String isbn = book.getIsbn();
+        TransactionHooks.afterCommit(() -> apply(target -> {
+            target.remove(id);
+            target.index(id, title, author, isbn);
+        }));
+    }
+
+    public void remove(Long id) {
+        if (!enabled) {
+            return;
+        }
+        TransactionHooks.afterCommit(() -> apply(target -> target.remove(id)));
+    }
+
+    public boolean isReady() {
+        return index != null;
+    }
+
+    public int size() {
+        Index current = index;
+        return current != null ? current.documents.size() : 0;
+    }
+
+    private void apply(Consumer<Index> change) {
+        lock.lock();
+        try {
+            Index current = index;
+            if (current != null) {
+                change.accept(current);
+            }
+            if (replay != null) {
+                replay.add(change);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private static String normalize(String value) {
+        return value != null ? value.toLowerCase(Locale.ROOT) : "";
+    }
+
+    private static Set<String> grams(String text) {
+        Set<String> result = new HashSet<>();
+        for (int i = 0; i + GRAM_SIZE <= text.length(); i++) {
+            result.add(text.substring(i, i + GRAM_SIZE));
+        }
+        return result;
+    }
+
+    private static final class Index {
+        private final Map<String, Set<Long>> postings = new ConcurrentHashMap<>();
+        private final Map<Long, String> documents = new ConcurrentHashMap<>();
+
+        void index(Long id, String title, String author, String isbn) {
+            String text = normalize(title) + FIELD_SEPARATOR + normalize(author) + FIELD_SEPARATOR + normalize(isbn);
+            documents.put(id, text);
+            for (String gram : grams(text)) {
+                postings.computeIfAbsent(gram, g -> ConcurrentHashMap.newKeySet()).add(id);
+            }
+        }
+
+        void remove(Long id) {
+            String text = documents.remove(id);
+            if (text == null) {
+                return;
+            }
+            for (String gram : grams(text)) {
+                postings.computeIfPresent(gram, (g, ids) -> {
+                    ids.remove(id);
+                    return ids.isEmpty() ? null : ids;
+                });
+            }
+        }
+    }
+}
@@ -1,34 +1,50 @@
 package com.bookstore.service;
 
 import com.bookstore.dto.request.BookRequest;
+import com.bookstore.dto.request.PageCursor;
 import com.bookstore.dto.response.BookResponse;
+import com.bookstore.dto.response.CursorPageResponse;
 import com.bookstore.dto.response.PageResponse;
 import com.bookstore.entity.Book;
 import com.bookstore.entity.BookCondition;
 import com.bookstore.entity.Category;
 import com.bookstore.exception.BookstoreExceptions.*;
 import com.bookstore.repository.BookRepository;
+import com.bookstore.repository.BookSpecifications;
 import com.bookstore.repository.CategoryRepository;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
+import java.util.ArrayList;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
 import java.util.Set;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
 public class BookService {
 
+    private static final int MAX_CURSOR_PAGE_SIZE = 100;
+
     private final BookRepository bookRepository;
     private final CategoryRepository categoryRepository;
+    private final BookSearchIndex bookSearchIndex;
+    private final BookCache bookCache;
+    private final InventoryLedger inventoryLedger;
+    private final RareBookIndex rareBookIndex;
 
     public PageResponse<BookResponse> getAllBooks(int page, int size, String sortBy, String sortDir) {
         Sort sort = sortDir.equalsIgnoreCase("desc")
@@ -36,35 +52,67 @@ public class BookService {
                 : Sort.by(sortBy).ascending();
         Pageable pageable = PageRequest.of(page, size, sort);
 
-        Page<BookResponse> bookPage = bookRepository.findAll(pageable)
-                .map(BookResponse::fromEntity);
+        Page<BookResponse> bookPage = toResponsePage(bookRepository.findAll(pageable));
 
         return PageResponse.fromPage(bookPage);
     }
 
+    // The page size is capped so size + 1 cannot overflow and a page stays bounded
+    public CursorPageResponse<BookResponse> getAllBooksByCursor(String cursor, int size) {
+        if (size < 1) {
+            throw new BadRequestException("Page size must be at least 1");
+        }
+        size = Math.min(size, MAX_CURSOR_PAGE_SIZE);
+        PageCursor after = PageCursor.decode(cursor);
+
+        // Fetch one extra row to know whether another page follows
+        Pageable limit = PageRequest.of(0, size + 1);
+        List<Book> books = after == null
+                ? bookRepository.findFirstKeysetPage(limit)
+                : bookRepository.findKeysetPageAfter(after.getCreatedAt(), after.getId(), limit);
+
+        String nextCursor = null;
+        if (books.size() > size) {
+            books = books.subList(0, size);
+            Book lastBook = books.get(size - 1);
+            nextCursor = new PageCursor(lastBook.getCreatedAt(), lastBook.getId()).encode();
+        }
+
+        return CursorPageResponse.of(toResponses(idsOf(books)), size, nextCursor);
+    }
+
     public BookResponse getBookById(Long id) {
-        Book book = bookRepository.findById(id)
-                .orElseThrow(() -> new ResourceNotFoundException("Book not found with id: " + id));
-        return BookResponse.fromEntity(book);
+        return bookCache.getById(id, () -> {
+            Book book = bookRepository.findById(id)
+                    .orElseThrow(() -> new ResourceNotFoundException("Book not found with id: " + id));
+            return BookResponse.fromEntity(book);
+        });
     }
 
     public BookResponse getBookByIsbn(String isbn) {
-        Book book = bookRepository.findByIsbn(isbn)
-                .orElseThrow(() -> new ResourceNotFoundException("Book not found with ISBN: " + isbn));
-        return BookResponse.fromEntity(book);
+        return bookCache.getByIsbn(isbn, () -> {
+            Book book = bookRepository.findByIsbn(isbn)
+                    .orElseThrow(() -> new ResourceNotFoundException("Book not found with ISBN: " + isbn));
+            return BookResponse.fromEntity(book);
+        });
     }
 
     public PageResponse<BookResponse> searchBooks(String keyword, int page, int size) {
         Pageable pageable = PageRequest.of(page, size);
-        Page<BookResponse> bookPage = bookRepository.searchBooks(keyword, pageable)
-                .map(BookResponse::fromEntity);
+
+        // Serve from the in-memory index when it can answer the keyword
+        Optional<List<Long>> matches = bookSearchIndex.search(keyword);
+        if (matches.isPresent()) {
+            return PageResponse.fromPage(pageOfIds(matches.get(), pageable));
+        }
+
+        Page<BookResponse> bookPage = toResponsePage(bookRepository.searchBooks(keyword, pageable));
         return PageResponse.fromPage(bookPage);
     }
 
     public PageResponse<BookResponse> getBooksByCategory(Long categoryId, int page, int size) {
         Pageable pageable = PageRequest.of(page, size);
-        Page<BookResponse> bookPage = bookRepository.findByCategory(categoryId, pageable)
-                .map(BookResponse::fromEntity);
+        Page<BookResponse> bookPage = toResponsePage(bookRepository.findByCategory(categoryId, pageable));
         return PageResponse.fromPage(bookPage);
     }
 
@@ -81,35 +129,45 @@ public class BookService {
             String sortBy,
             String sortDir) {
 
-        // For native queries, we handle sorting in the SQL itself, so use unsorted pageable
-        Pageable pageable = PageRequest.of(page, size);
+        Sort sort = sortDir.equalsIgnoreCase("desc")
+                ? Sort.by(sortBy).descending()
+                : Sort.by(sortBy).ascending();
+        Pageable pageable = PageRequest.of(page, size, sort);
 
         // Normalize empty strings to null for consistent null checking
         String normalizedKeyword = (keyword != null && !keyword.trim().isEmpty()) ? keyword.trim() : null;
 
-        // Convert condition enum to string for native query
-        String conditionStr = (condition != null) ? condition.name() : null;
+        // Only the filters that are actually set end up in the query
+        Specification<Book> spec = Specification.allOf(
+                BookSpecifications.keywordMatches(normalizedKeyword),
+                BookSpecifications.inCategory(categoryId),
+                BookSpecifications.priceAtLeast(minPrice),
+                BookSpecifications.priceAtMost(maxPrice),
+                BookSpecifications.hasCondition(condition),
+                BookSpecifications.isRare(isRare),
+                BookSpecifications.inStockOnly(inStock));
 
-        Page<BookResponse> bookPage = bookRepository.advancedSearch(
-                        normalizedKeyword, categoryId, minPrice, maxPrice, conditionStr, isRare, inStock, pageable)
-                .map(BookResponse::fromEntity);
+        Page<BookResponse> bookPage = toResponsePage(bookRepository.findAll(spec, pageable));
 
         return PageResponse.fromPage(bookPage);
     }
 
     public PageResponse<BookResponse> getInStockBooks(int page, int size) {
         Pageable pageable = PageRequest.of(page, size);
-        Page<BookResponse> bookPage = bookRepository.findInStock(pageable)
-                .map(BookResponse::fromEntity);
+        Page<BookResponse> bookPage = toResponsePage(bookRepository.findInStock(pageable));
         return PageResponse.fromPage(bookPage);
     }
 
+    // These lists are unbounded, so the books are mapped as read rather than re-read by id in one IN
+    // clause; their categories come in batches (see Book.categories)
+    @Transactional(readOnly = true)
     public List<BookResponse> getLowStockBooks(int threshold) {
         return bookRepository.findLowStock(threshold).stream()
                 .map(BookResponse::fromEntity)
                 .collect(Collectors.toList());
     }
 
+    @Transactional(readOnly = true)
     public List<BookResponse> getOutOfStockBooks() {
         return bookRepository.findOutOfStock().stream()
                 .map(BookResponse::fromEntity)
@@ -146,6 +204,8 @@ public class BookService {
                 .build();
 
         book = bookRepository.save(book);
+        bookSearchIndex.put(book);
+        rareBookIndex.put(book.getId(), book.getIsRare());
         return BookResponse.fromEntity(book);
     }
 
@@ -167,6 +227,8 @@ public class BookService {
         book.setPublisher(request.getPublisher());
         book.setPublicationYear(request.getPublicationYear());
         book.setPrice(request.getPrice());
+        // An unchanged quantity is just the edit form echoing the stored value back
+        boolean quantityChanged = !Objects.equals(book.getQuantity(), request.getQuantity());
         book.setQuantity(request.getQuantity());
 
         if (request.getBookCondition() != null) {
@@ -190,6 +252,12 @@ public class BookService {
         }
 
         book = bookRepository.save(book);
+        if (quantityChanged) {
+            inventoryLedger.quantitySet(id);
+        }
+        bookSearchIndex.put(book);
+        rareBookIndex.put(id, book.getIsRare());
+        bookCache.evict(id);
         return BookResponse.fromEntity(book);
     }
 
@@ -204,6 +272,8 @@ public class BookService {
 
         book.setQuantity(quantity);
         book = bookRepository.save(book);
+        inventoryLedger.quantitySet(id);
+        bookCache.evict(id);
         return BookResponse.fromEntity(book);
     }
 
@@ -213,6 +283,10 @@ public class BookService {
             throw new ResourceNotFoundException("Book not found with id: " + id);
         }
         bookRepository.deleteById(id);
+        inventoryLedger.bookDeleted(id);
+        bookSearchIndex.remove(id);
+        rareBookIndex.remove(id);
+        bookCache.evict(id);
     }
 
     @Transactional
@@ -225,6 +299,7 @@ public class BookService {
 
         book.addCategory(category);
         book = bookRepository.save(book);
+        bookCache.evict(bookId);
         return BookResponse.fromEntity(book);
     }
 
@@ -238,6 +313,39 @@ public class BookService {
 
         book.removeCategory(category);
         book = bookRepository.save(book);
+        bookCache.evict(bookId);
         return BookResponse.fromEntity(book);
     }
-}
\ No newline at end of file
+
+    // Loads one page of books by id, keeping the order of the id list
+    private Page<BookResponse> pageOfIds(List<Long> ids, Pageable pageable) {
+        int from = (int) Math.min(pageable.getOffset(), ids.size());
+        int to = Math.min(from + pageable.getPageSize(), ids.size());
+        return new PageImpl<>(toResponses(ids.subList(from, to)), pageable, ids.size());
+    }
+
+    // Maps a page of books, loading categories for the whole page in one query instead of one per book
+    private Page<BookResponse> toResponsePage(Page<Book> page) {
+        return new PageImpl<>(toResponses(idsOf(page.getContent())), page.getPageable(), page.getTotalElements());
+    }
+
+    private List<BookResponse> toResponses(List<Long> ids) {
+        if (ids.isEmpty()) {
+            return new ArrayList<>();
+        }
+
+        Map<Long, Book> booksById = bookRepository.findAllWithCategoriesByIdIn(ids).stream()
+                .collect(Collectors.toMap(Book::getId, Function.identity()));
+        return ids.stream()
+                .map(booksById::get)
+                .filter(Objects::nonNull)
+                .map(BookResponse::fromEntity)
+                .collect(Collectors.toList());
+    }
+
+    private static List<Long> idsOf(List<Book> books) {
+        return books.stream()
+                .map(Book::getId)
+                .collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,230 @@
+package com.bookstore.service;
+
+import com.bookstore.exception.BookstoreExceptions.*;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.DelayQueue;
+import java.util.concurrent.Delayed;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+// Optional stock holds for cart lines (bookstore.cart.reservations.enabled=true). Adding a book to the
+// cart takes the units out of the inventory ledger for a limited time, so checkout cannot run out of
+// stock for lines that are still held. Every change to a line restarts its hold.
+// Expiry deadlines sit in a DelayQueue, so each sweep only touches holds that are actually due.
+@Component
+public class CartReservations {
+
+    private final InventoryLedger inventoryLedger;
+    private final boolean enabled;
+    private final long ttlNanos;
+
+    // userId -> bookId -> hold; a user's holds are only changed inside compute() on this map
+    private final Map<Long, Map<Long, Hold>> holds = new ConcurrentHashMap<>();
+    private final DelayQueue<Expiry> expiries = new DelayQueue<>();
+    private final ScheduledExecutorService sweeper;
+    private final Counter expired;
+
+    public CartReservations(
+            InventoryLedger inventoryLedger,
+            MeterRegistry meterRegistry,
+            @Value("${bookstore.cart.reservations.enabled:false}") boolean enabled,
+            @Value("${bookstore.cart.reservations.ttl-seconds:900}") long ttlSeconds) {
+        if (enabled && !inventoryLedger.isEnabled()) {
+            throw new IllegalStateException(
+                    "bookstore.cart.reservations.enabled requires bookstore.inventory.ledger.enabled");
+        }
+        this.inventoryLedger = inventoryLedger;
+        this.enabled = enabled;
+        this.ttlNanos = TimeUnit.SECONDS.toNanos(ttlSeconds);
+
+        this.sweeper = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "cart-hold-expiry");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        this.expired = Counter.builder("cart.reservations.expired")
+                .register(meterRegistry);
+        Gauge.builder("cart.reservations.carts", holds, Map::size)
+                .register(meterRegistry);
+    }
+
+    @PostConstruct
+    void start() {
+        if (enabled) {
+            sweeper.scheduleWithFixedDelay(this::expireDue, 1, 1, TimeUnit.SECONDS);
+        }
+    }
+
+    @PreDestroy
+    void stop() throws InterruptedException {
+        sweeper.shutdown();
+        sweeper.awaitTermination(10, TimeUnit.SECONDS);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    // Holds `quantity` units for the line, then applies the cart change. The hold is put back the way
+    // it was if the change fails.
+    public <T> T withHold(Long userId, Long bookId, int quantity, Supplier<T> change) {
+        if (!enabled) {
+            return change.get();
+        }
+
+        int previous = hold(userId, bookId, Math.max(quantity, 0));
+        try {
+            return change.get();
+        } catch (RuntimeException e) {
+            try {
+                hold(userId, bookId, previous);
+            } catch (InsufficientStockException lost) {
+                hold(userId, bookId, 0);
+            }
+            throw e;
+        }
+    }
+
+    public void release(Long userId, Long bookId) {
+        if (enabled) {
+            hold(userId, bookId, 0);
+        }
+    }
+
+    public void releaseAll(Long userId) {
+        if (!enabled) {
+            return;
+        }
+
+        holds.computeIfPresent(userId, (id, lines) -> {
+            lines.entrySet().removeIf(line -> {
+                if (line.getValue().converting()) {
+                    return false;
+                }
+                inventoryLedger.releaseHold(line.getKey(), line.getValue().quantity());
+                return true;
+            });
+            return lines.isEmpty() ? null : lines;
+        });
+    }
+
+    // Checkout: takes a line's stock from its hold when the hold still covers the whole line.
+    // Returns false when there is no usable hold and the caller has to take the stock itself.
+    public boolean convert(Long userId, Long bookId, int quantity) {
+        if (!enabled) {
+            return false;
+        }
+
+        boolean[] converted = {false};
+        holds.computeIfPresent(userId, (id, lines) -> {
+            Hold hold = lines.get(bookId);
+            if (hold != null && !hold.converting() && hold.quantity() == quantity) {
+                lines.put(bookId, hold.converting(true));
+                converted[0] = true;
+            }
+            return lines;
+        });
+        if (!converted[0]) {
+            return false;
+        }
+
+        inventoryLedger.takeHeld(bookId, quantity);
+        TransactionHooks.afterCommit(() -> holds.computeIfPresent(userId, (id, lines) -> {
+            lines.remove(bookId);
+            return lines.isEmpty() ? null : lines;
+        }));
+        TransactionHooks.afterRollback(() -> holds.computeIfPresent(userId, (id, lines) -> {
+            Hold hold = lines.get(bookId);
+            if (hold != null && hold.converting()) {
+                lines.put(bookId, hold.converting(false));
+                // The deadline may have passed while the checkout ran
+                expiries.offer(new Expiry(userId, bookId, hold.deadline()));
+            }
+            return lines;
+        }));
+        return true;
+    }
+
+    // Sets the line's hold to `quantity` units (0 releases it) and returns the units held before
+    private int hold(Long userId, Long bookId, int quantity) {
+        int[] previous = {0};
+        long deadline = System.nanoTime() + ttlNanos;
+        holds.compute(userId, (id, lines) -> {
+            if (lines == null) {
+                lines = new HashMap<>();
+            }
+            Hold current = lines.get(bookId);
+            if (current != null && current.converting()) {
+                throw new BadRequestException("Checkout is already in progress for this cart");
+            }
+            int held = current != null ? current.quantity() : 0;
+            if (quantity > held && !inventoryLedger.hold(bookId, quantity - held)) {
+                throw new InsufficientStockException(
+                        "Insufficient stock for book id: " + bookId + ". Requested: " + quantity);
+            }
+            if (quantity < held) {
+                inventoryLedger.releaseHold(bookId, held - quantity);
+            }
+
+            previous[0] = held;
+            if (quantity == 0) {
+                lines.remove(bookId);
+            } else {
+                lines.put(bookId, new Hold(quantity, deadline, false));
+                expiries.offer(new Expiry(userId, bookId, deadline));
+            }
+            return lines.isEmpty() ? null : lines;
+        });
+        return previous[0];
+    }
+
+    void expireDue() {
+        Expiry expiry;
+        while ((expiry = expiries.poll()) != null) {
+            Expiry due = expiry;
+            holds.computeIfPresent(due.userId(), (id, lines) -> {
+                Hold hold = lines.get(due.bookId());
+                // A restarted hold has a later deadline; its own queue entry will expire it
+                if (hold != null && !hold.converting() && hold.deadline() == due.deadline()) {
+                    lines.remove(due.bookId());
+                    inventoryLedger.releaseHold(due.bookId(), hold.quantity());
+                    expired.increment();
+                }
+                return lines.isEmpty() ? null : lines;
+            });
+        }
+    }
+
+    private record Hold(int quantity, long deadline, boolean converting) {
+
+        Hold converting(boolean value) {
+            return new Hold(quantity, deadline, value);
+        }
+    }
+
+    private record Expiry(Long userId, Long bookId, long deadline) implements Delayed {
+
+        @Override
+        public long getDelay(TimeUnit unit) {
+            return unit.convert(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+        }
+
+        @Override
+        public int compareTo(Delayed other) {
+            return Long.compare(deadline, ((Expiry) other).deadline);
+        }
+    }
+}
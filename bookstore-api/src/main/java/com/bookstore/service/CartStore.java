@@ -0,0 +1,31 @@
+package com.bookstore.service;
+
+import com.bookstore.dto.response.CartResponse;
+
+import java.util.Map;
+
+// Where CartService keeps shopping carts. Selected with bookstore.cart.store:
+// "memory" (default) buffers carts in memory and writes them behind, "database" writes through.
+public interface CartStore {
+
+    CartResponse getCart(Long userId);
+
+    CartResponse addItem(Long userId, Long bookId, int quantity);
+
+    CartResponse updateItemQuantity(Long userId, Long bookId, int quantity);
+
+    CartResponse removeItem(Long userId, Long bookId);
+
+    void clearCart(Long userId);
+
+    // bookId -> quantity of every line, without building the response (no book lookups)
+    Map<Long, Integer> getLineQuantities(Long userId);
+
+    // Writes the user's pending cart changes within the current transaction, so code that reads
+    // shopping_carts/cart_items directly (checkout) sees the same cart the user sees
+    void flush(Long userId);
+
+    // Forgets any buffered state for the user after commit; call when the cart rows were changed
+    // behind the store's back
+    void invalidate(Long userId);
+}
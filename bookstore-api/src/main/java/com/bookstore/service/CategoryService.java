@@ -17,6 +17,7 @@ import java.util.stream.Collectors;
 public class CategoryService {
 
     private final CategoryRepository categoryRepository;
+    private final BookCache bookCache;
 
     public List<CategoryResponse> getAllCategories() {
         return categoryRepository.findAll().stream()
@@ -72,6 +73,9 @@ public class CategoryService {
         category.setDescription(request.getDescription());
 
         category = categoryRepository.save(category);
+
+        // Cached books embed category names
+        bookCache.evictAll();
         return CategoryResponse.fromEntity(category);
     }
 
@@ -0,0 +1,131 @@
+package com.bookstore.service;
+
+import com.bookstore.dto.response.BookResponse;
+import com.bookstore.exception.BookstoreExceptions.*;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+// Token gate in front of checkout for rare books. A drop sells a handful of units to a crowd, and every
+// attempt beyond the remaining stock would only queue on the book's row lock to fail. Each rare book
+// admits checkouts while the units they are buying fit in the stock; the rest are turned away before a
+// database transaction is opened.
+@Component
+public class CheckoutAdmission {
+
+    private final CartStore cartStore;
+    private final BookService bookService;
+    private final RareBookIndex rareBookIndex;
+    private final InventoryLedger inventoryLedger;
+    private final boolean enabled;
+
+    // Units of each rare book claimed by checkouts that are still running
+    private final Map<Long, AtomicInteger> inFlight = new ConcurrentHashMap<>();
+    private final Counter admitted;
+    private final Counter rejectedSoldOut;
+    private final Counter rejectedBusy;
+
+    public CheckoutAdmission(
+            CartStore cartStore,
+            BookService bookService,
+            RareBookIndex rareBookIndex,
+            InventoryLedger inventoryLedger,
+            MeterRegistry meterRegistry,
+            @Value("${bookstore.checkout.admission.enabled:true}") boolean enabled) {
+        this.cartStore = cartStore;
+        this.bookService = bookService;
+        this.rareBookIndex = rareBookIndex;
+        this.inventoryLedger = inventoryLedger;
+        this.enabled = enabled;
+
+        this.admitted = Counter.builder("checkout.admission.admitted")
+                .register(meterRegistry);
+        this.rejectedSoldOut = Counter.builder("checkout.admission.rejected")
+                .tag("reason", "sold_out")
+                .register(meterRegistry);
+        this.rejectedBusy = Counter.builder("checkout.admission.rejected")
+                .tag("reason", "busy")
+                .register(meterRegistry);
+    }
+
+    // Runs the checkout if every rare book in the user's cart has a token for it
+    public <T> T admit(Long userId, Supplier<T> checkout) {
+        // Most of the time no book is rare and the cart is not even read
+        if (!enabled || rareBookIndex.isEmpty()) {
+            return checkout.get();
+        }
+
+        List<Claim> claims = new ArrayList<>();
+        for (Map.Entry<Long, Integer> line : cartStore.getLineQuantities(userId).entrySet()) {
+            if (!rareBookIndex.isRare(line.getKey())) {
+                continue;
+            }
+            BookResponse book;
+            try {
+                book = bookService.getBookById(line.getKey());
+            } catch (ResourceNotFoundException e) {
+                // Deleted since it was added; checkout drops the line on its own
+                continue;
+            }
+            // The index can trail a change made through another instance
+            if (Boolean.TRUE.equals(book.getIsRare())) {
+                claims.add(new Claim(book, line.getValue()));
+            }
+        }
+        if (claims.isEmpty()) {
+            return checkout.get();
+        }
+
+        // Same order for everyone, like the stock updates in checkout itself
+        claims.sort(Comparator.comparing(claim -> claim.book().getId()));
+        List<Claim> acquired = new ArrayList<>(claims.size());
+        try {
+            for (Claim claim : claims) {
+                acquire(claim);
+                acquired.add(claim);
+            }
+            admitted.increment();
+            return checkout.get();
+        } finally {
+            for (Claim claim : acquired) {
+                inFlight.get(claim.book().getId()).addAndGet(-claim.quantity());
+            }
+        }
+    }
+
+    private void acquire(Claim claim) {
+        BookResponse book = claim.book();
+        // The ledger is ahead of books.quantity when it is enabled
+        int stock = inventoryLedger.isEnabled() ? inventoryLedger.onHand(book.getId()) : book.getQuantity();
+        if (stock < claim.quantity()) {
+            rejectedSoldOut.increment();
+            throw new InsufficientStockException(
+                    "Insufficient stock for book: " + book.getTitle() + ". Available: " + stock +
+                    ", Requested: " + claim.quantity());
+        }
+
+        AtomicInteger claimed = inFlight.computeIfAbsent(book.getId(), id -> new AtomicInteger());
+        int current;
+        do {
+            current = claimed.get();
+            if (current + claim.quantity() > stock) {
+                rejectedBusy.increment();
+                throw new ServiceUnavailableException(
+                        "All remaining copies of " + book.getTitle() + " are being checked out right now. " +
+                        "Please try again in a moment.");
+            }
+        } while (!claimed.compareAndSet(current, current + claim.quantity()));
+    }
+
+    private record Claim(BookResponse book, int quantity) {
+    }
+}
@@ -0,0 +1,30 @@
+package com.bookstore.service;
+
+import java.io.IOException;
+import java.io.Writer;
+
+// Writes RFC 4180 rows - the counterpart of the CSV parsing in BookImportReader
+final class CsvWriter {
+
+    private CsvWriter() {
+    }
+
+    static void writeRow(Writer out, Object... values) throws IOException {
+        for (int i = 0; i < values.length; i++) {
+            if (i > 0) {
+                out.write(',');
+            }
+            if (values[i] != null) {
+                out.write(escape(values[i].toString()));
+            }
+        }
+        out.write('\n');
+    }
+
+    private static String escape(String value) {
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+            return value;
+        }
+        return '"' + value.replace("\"", "\"\"") + '"';
+    }
+}
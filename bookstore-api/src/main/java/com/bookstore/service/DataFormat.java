@@ -0,0 +1,39 @@
+package com.bookstore.service;
+
+import com.bookstore.exception.BookstoreExceptions.BadRequestException;
+import org.springframework.http.MediaType;
+
+import java.util.Locale;
+
+// Line-oriented formats used by the bulk import and export endpoints
+public enum DataFormat {
+    CSV(new MediaType("text", "csv")),
+    NDJSON(new MediaType("application", "x-ndjson"));
+
+    private final MediaType mediaType;
+
+    DataFormat(MediaType mediaType) {
+        this.mediaType = mediaType;
+    }
+
+    public MediaType getMediaType() {
+        return mediaType;
+    }
+
+    public String getExtension() {
+        return name().toLowerCase(Locale.ROOT);
+    }
+
+    public static DataFormat of(MediaType contentType) {
+        return contentType.isCompatibleWith(CSV.mediaType) ? CSV : NDJSON;
+    }
+
+    public static DataFormat of(String name) {
+        for (DataFormat format : values()) {
+            if (format.name().equalsIgnoreCase(name)) {
+                return format;
+            }
+        }
+        throw new BadRequestException("Unsupported format: " + name + ". Use csv or ndjson");
+    }
+}
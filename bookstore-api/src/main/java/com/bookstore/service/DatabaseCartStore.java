@@ -0,0 +1,185 @@
+package com.bookstore.service;
+
+import com.bookstore.dto.response.BookResponse;
+import com.bookstore.dto.response.CartItemResponse;
+import com.bookstore.dto.response.CartResponse;
+import com.bookstore.entity.Book;
+import com.bookstore.entity.CartItem;
+import com.bookstore.entity.ShoppingCart;
+import com.bookstore.entity.User;
+import com.bookstore.exception.BookstoreExceptions.*;
+import com.bookstore.repository.BookRepository;
+import com.bookstore.repository.CartItemRepository;
+import com.bookstore.repository.ShoppingCartRepository;
+import com.bookstore.repository.UserRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.stream.Collectors;
+
+// Write-through cart store: every mutation is its own transaction against shopping_carts/cart_items
+@Component
+@ConditionalOnProperty(name = "bookstore.cart.store", havingValue = "database")
+@RequiredArgsConstructor
+public class DatabaseCartStore implements CartStore {
+
+    private final ShoppingCartRepository cartRepository;
+    private final CartItemRepository cartItemRepository;
+    private final BookRepository bookRepository;
+    private final UserRepository userRepository;
+
+    @Override
+    public CartResponse getCart(Long userId) {
+        ShoppingCart cart = getOrCreateCart(userId);
+        return CartResponse.fromEntity(cart);
+    }
+
+    @Override
+    public Map<Long, Integer> getLineQuantities(Long userId) {
+        Map<Long, Integer> quantities = new HashMap<>();
+        for (Object[] row : cartItemRepository.findLineQuantitiesByUserId(userId)) {
+            quantities.put((Long) row[0], (Integer) row[1]);
+        }
+        return quantities;
+    }
+
+    @Override
+    @Transactional
+    public CartResponse addItem(Long userId, Long bookId, int quantity) {
+        ShoppingCart cart = getOrCreateCart(userId);
+        Optional<CartItem> existingItem = findItem(cart, bookId);
+
+        // Insert or increment the line in one statement; the stock check is part of the statement
+        List<Object[]> upserted = cartItemRepository.upsertItem(cart.getId(), bookId, quantity);
+        if (upserted.isEmpty()) {
+            Book book = bookRepository.findById(bookId)
+                    .orElseThrow(() -> new ResourceNotFoundException("Book not found with id: " + bookId));
+            int requested = quantity + existingItem.map(CartItem::getQuantity).orElse(0);
+            throw new InsufficientStockException(
+                    "Insufficient stock for book: " + book.getTitle() +
+                    ". Available: " + book.getQuantity() + ", Requested: " + requested);
+        }
+        Object[] row = upserted.get(0);
+        Long itemId = ((Number) row[0]).longValue();
+        int newQuantity = ((Number) row[1]).intValue();
+
+        // Only a brand-new line needs the book loaded; existing lines already carry it
+        CartItemResponse line = existingItem
+                .map(item -> CartItemResponse.of(itemId, BookResponse.withoutCategories(item.getBook()),
+                        newQuantity, item.getAddedAt()))
+                .orElseGet(() -> CartItemResponse.of(itemId, bookRepository.findById(bookId)
+                        .map(BookResponse::withoutCategories)
+                        .orElseThrow(() -> new ResourceNotFoundException("Book not found with id: " + bookId)),
+                        newQuantity, LocalDateTime.now()));
+
+        return responseWith(cart, line);
+    }
+
+    @Override
+    @Transactional
+    public CartResponse updateItemQuantity(Long userId, Long bookId, int quantity) {
+        if (quantity <= 0) {
+            // Remove item if quantity is 0 or negative
+            return removeItem(userId, bookId);
+        }
+
+        ShoppingCart cart = cartRepository.findByUserIdWithItemsAndBooks(userId)
+                .orElseThrow(() -> new ResourceNotFoundException("Cart not found for user"));
+
+        CartItem item = findItem(cart, bookId)
+                .orElseThrow(() -> new ResourceNotFoundException("Item not found in cart"));
+
+        if (cartItemRepository.updateQuantityIfInStock(cart.getId(), bookId, quantity) == 0) {
+            throw new InsufficientStockException(
+                    "Insufficient stock for book: " + item.getBook().getTitle() + 
+                    ". Available: " + item.getBook().getQuantity());
+        }
+
+        return responseWith(cart, CartItemResponse.of(
+                item.getId(), BookResponse.withoutCategories(item.getBook()), quantity, item.getAddedAt()));
+    }
+
+    @Override
+    @Transactional
+    public CartResponse removeItem(Long userId, Long bookId) {
+        ShoppingCart cart = cartRepository.findByUserIdWithItemsAndBooks(userId)
+                .orElseThrow(() -> new ResourceNotFoundException("Cart not found for user"));
+
+        findItem(cart, bookId)
+                .orElseThrow(() -> new ResourceNotFoundException("Item not found in cart"));
+
+        cartItemRepository.deleteByCartIdAndBookId(cart.getId(), bookId);
+
+        List<CartItemResponse> items = cart.getItems().stream()
+                .filter(item -> !item.getBook().getId().equals(bookId))
+                .map(CartItemResponse::fromEntity)
+                .collect(Collectors.toList());
+        return CartResponse.of(cart.getId(), userId, items, cart.getUpdatedAt());
+    }
+
+    @Override
+    @Transactional
+    public void clearCart(Long userId) {
+        ShoppingCart cart = cartRepository.findByUserIdWithItems(userId)
+                .orElseThrow(() -> new ResourceNotFoundException("Cart not found for user"));
+
+        cart.clearItems();
+        cartItemRepository.deleteAllByCartId(cart.getId());
+    }
+
+    private ShoppingCart getOrCreateCart(Long userId) {
+        return cartRepository.findByUserIdWithItemsAndBooks(userId)
+                .orElseGet(() -> {
+                    User user = userRepository.findById(userId)
+                            .orElseThrow(() -> new ResourceNotFoundException("User not found with id: " + userId));
+                    
+                    ShoppingCart newCart = ShoppingCart.builder()
+                            .user(user)
+                            .build();
+                    return cartRepository.save(newCart);
+                });
+    }
+
+    @Override
+    public void flush(Long userId) {
+        // Nothing is buffered
+    }
+
+    @Override
+    public void invalidate(Long userId) {
+        // Nothing is buffered
+    }
+
+    private Optional<CartItem> findItem(ShoppingCart cart, Long bookId) {
+        return cart.getItems().stream()
+                .filter(item -> item.getBook().getId().equals(bookId))
+                .findFirst();
+    }
+
+    // Builds the response from the cart loaded at the start of the request, with one line replaced or
+    // appended, instead of reloading the cart after the write
+    private CartResponse responseWith(ShoppingCart cart, CartItemResponse line) {
+        List<CartItemResponse> items = new ArrayList<>();
+        boolean replaced = false;
+        for (CartItem item : cart.getItems()) {
+            if (item.getBook().getId().equals(line.getBookId())) {
+                items.add(line);
+                replaced = true;
+            } else {
+                items.add(CartItemResponse.fromEntity(item));
+            }
+        }
+        if (!replaced) {
+            items.add(line);
+        }
+        return CartResponse.of(cart.getId(), cart.getUser().getId(), items, cart.getUpdatedAt());
+    }
+}
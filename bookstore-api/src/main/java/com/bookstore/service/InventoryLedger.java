@@ -0,0 +1,371 @@
+package com.bookstore.service;
+
+import com.bookstore.repository.BookRepository;
+import com.bookstore.repository.InventoryJournalRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Every stock change goes through here. By default that is a conditional UPDATE of books.quantity.
+// With bookstore.inventory.ledger.enabled=true, available stock per book lives in an in-memory counter
+// taken with compare-and-set, and each change is appended to inventory_journal in the caller's
+// transaction instead of updating the hot book row. A background thread folds the journal into
+// books.quantity in batches, and a reconciliation pass corrects counters that drift from the database
+// (only for books with no change in flight, since an uncommitted take is ahead of the database).
+// Cart holds (CartReservations) take units from the same counters without touching the database
+// until checkout turns them into journal entries.
+// Counters live in this JVM only - keep the ledger off when several instances take stock.
+@Component
+@Slf4j
+public class InventoryLedger {
+
+    // Moves the oldest journal rows into books.quantity in one statement and returns the touched books
+    private static final String FOLD_SQL =
+            "WITH moved AS (" +
+            "DELETE FROM inventory_journal WHERE id IN (SELECT id FROM inventory_journal ORDER BY id LIMIT ?) " +
+            "RETURNING book_id, delta), " +
+            "totals AS (SELECT book_id, SUM(delta) AS delta FROM moved GROUP BY book_id) " +
+            "UPDATE books b SET quantity = b.quantity + t.delta, updated_at = CURRENT_TIMESTAMP " +
+            "FROM totals t WHERE b.id = t.book_id RETURNING b.id";
+
+    private static final int MAX_FOLDS_PER_RUN = 10;
+    private static final int RECONCILE_CHUNK_SIZE = 1000;
+
+    private final BookRepository bookRepository;
+    private final InventoryJournalRepository journalRepository;
+    private final BookCache bookCache;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final boolean enabled;
+    private final long foldIntervalMs;
+    private final int foldBatchSize;
+    private final long reconcileIntervalMs;
+
+    private final Map<Long, AtomicInteger> available = new ConcurrentHashMap<>();
+    // Units currently out of the counters on cart holds, so reconciliation does not hand them back
+    private final Map<Long, AtomicInteger> held = new ConcurrentHashMap<>();
+    private final Map<Long, Activity> activity = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService worker;
+    private final Timer foldTimer;
+    private final Counter foldFailures;
+    private final Counter driftCorrections;
+
+    public InventoryLedger(
+            BookRepository bookRepository,
+            InventoryJournalRepository journalRepository,
+            BookCache bookCache,
+            JdbcTemplate jdbcTemplate,
+            PlatformTransactionManager transactionManager,
+            MeterRegistry meterRegistry,
+            @Value("${bookstore.inventory.ledger.enabled:false}") boolean enabled,
+            @Value("${bookstore.inventory.ledger.fold-interval-ms:1000}") long foldIntervalMs,
+            @Value("${bookstore.inventory.ledger.fold-batch-size:5000}") int foldBatchSize,
+            @Value("${bookstore.inventory.ledger.reconcile-interval-ms:60000}") long reconcileIntervalMs) {
+        this.bookRepository = bookRepository;
+        this.journalRepository = journalRepository;
+        this.bookCache = bookCache;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.enabled = enabled;
+        this.foldIntervalMs = foldIntervalMs;
+        this.foldBatchSize = foldBatchSize;
+        this.reconcileIntervalMs = reconcileIntervalMs;
+
+        this.worker = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "inventory-ledger");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        this.foldTimer = Timer.builder("inventory.ledger.fold")
+                .register(meterRegistry);
+        this.foldFailures = Counter.builder("inventory.ledger.fold.failures")
+                .register(meterRegistry);
+        this.driftCorrections = Counter.builder("inventory.ledger.drift.corrections")
+                .register(meterRegistry);
+        Gauge.builder("inventory.ledger.books", available, Map::size)
+                .register(meterRegistry);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        if (!enabled) {
+            return;
+        }
+
+        // Counters already loaded by early requests are current, so only fill the gaps
+        for (Object[] row : journalRepository.findAllAvailable()) {
+            available.putIfAbsent((Long) row[0], new AtomicInteger(((Number) row[1]).intValue()));
+        }
+        log.info("Inventory ledger loaded stock for {} books", available.size());
+
+        worker.scheduleWithFixedDelay(this::foldJournal, foldIntervalMs, foldIntervalMs, TimeUnit.MILLISECONDS);
+        worker.scheduleWithFixedDelay(this::reconcile, reconcileIntervalMs, reconcileIntervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    void stop() throws InterruptedException {
+        worker.shutdown();
+        worker.awaitTermination(10, TimeUnit.SECONDS);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    // Takes stock for an order line inside the caller's transaction; false when there is not enough left
+    public boolean take(Long bookId, int quantity) {
+        if (!enabled) {
+            return bookRepository.decrementStock(bookId, quantity) > 0;
+        }
+
+        AtomicInteger counter = counter(bookId);
+        if (counter == null) {
+            return false;
+        }
+        Activity change = begin(bookId);
+        if (!tryTake(counter, quantity)) {
+            change.end();
+            return false;
+        }
+        TransactionHooks.afterRollback(() -> counter.addAndGet(quantity));
+        TransactionHooks.afterCompletion(change::end);
+        journalRepository.append(bookId, -quantity);
+        return true;
+    }
+
+    // Units not yet sold, including those held in carts
+    public int onHand(Long bookId) {
+        AtomicInteger counter = counter(bookId);
+        return counter != null ? counter.get() + heldUnits(bookId) : 0;
+    }
+
+    // Sets units aside for a cart in memory only; false when there is not enough left
+    boolean hold(Long bookId, int quantity) {
+        AtomicInteger counter = counter(bookId);
+        if (counter == null) {
+            return false;
+        }
+        Activity change = begin(bookId);
+        try {
+            if (!tryTake(counter, quantity)) {
+                return false;
+            }
+            held.computeIfAbsent(bookId, id -> new AtomicInteger()).addAndGet(quantity);
+            return true;
+        } finally {
+            change.end();
+        }
+    }
+
+    void releaseHold(Long bookId, int quantity) {
+        Activity change = begin(bookId);
+        try {
+            held.computeIfAbsent(bookId, id -> new AtomicInteger()).addAndGet(-quantity);
+            AtomicInteger counter = available.get(bookId);
+            if (counter != null) {
+                counter.addAndGet(quantity);
+            }
+        } finally {
+            change.end();
+        }
+    }
+
+    // Turns held units into a sale inside the caller's transaction. The units already left the counter
+    // when they were held, so there is nothing to check; a rollback leaves the hold in place.
+    void takeHeld(Long bookId, int quantity) {
+        Activity change = begin(bookId);
+        TransactionHooks.afterCommit(() -> held.computeIfAbsent(bookId, id -> new AtomicInteger()).addAndGet(-quantity));
+        TransactionHooks.afterCompletion(change::end);
+        journalRepository.append(bookId, -quantity);
+    }
+
+    // Returns stock (e.g. on cancellation); the units become available once the transaction commits
+    public void restore(Long bookId, int quantity) {
+        if (!enabled) {
+            bookRepository.incrementStock(bookId, quantity);
+            return;
+        }
+
+        Activity change = begin(bookId);
+        TransactionHooks.afterCommit(() -> {
+            AtomicInteger counter = available.get(bookId);
+            if (counter != null) {
+                counter.addAndGet(quantity);
+            }
+        });
+        TransactionHooks.afterCompletion(change::end);
+        journalRepository.append(bookId, quantity);
+    }
+
+    // Called after books.quantity has been overwritten with an absolute value
+    public void quantitySet(Long bookId) {
+        if (!enabled) {
+            return;
+        }
+
+        // Pending changes predate the new absolute quantity
+        Activity change = begin(bookId);
+        TransactionHooks.afterCommit(() -> {
+            AtomicInteger counter = available.get(bookId);
+            if (counter != null) {
+                // Takes racing with this reload are still in flight, so reconciliation settles them later
+                Long stock = journalRepository.findAvailable(bookId);
+                counter.set((stock != null ? stock.intValue() : 0) - heldUnits(bookId));
+            }
+        });
+        TransactionHooks.afterCompletion(change::end);
+        journalRepository.deleteByBookId(bookId);
+    }
+
+    public void bookDeleted(Long bookId) {
+        if (!enabled) {
+            return;
+        }
+
+        journalRepository.deleteByBookId(bookId);
+        TransactionHooks.afterCommit(() -> available.remove(bookId));
+    }
+
+    // Loaded on first use so books created after startup are covered. The query runs outside the map
+    // so a slow load never blocks other books; if two threads race, the first counter stored wins.
+    private AtomicInteger counter(Long bookId) {
+        AtomicInteger counter = available.get(bookId);
+        if (counter != null) {
+            return counter;
+        }
+        Long stock = journalRepository.findAvailable(bookId);
+        if (stock == null) {
+            return null;
+        }
+        AtomicInteger loaded = new AtomicInteger(stock.intValue() - heldUnits(bookId));
+        AtomicInteger existing = available.putIfAbsent(bookId, loaded);
+        return existing != null ? existing : loaded;
+    }
+
+    private Activity begin(Long bookId) {
+        Activity change = activity.computeIfAbsent(bookId, id -> new Activity());
+        change.started.incrementAndGet();
+        change.inFlight.incrementAndGet();
+        return change;
+    }
+
+    private int heldUnits(Long bookId) {
+        AtomicInteger units = held.get(bookId);
+        return units != null ? units.get() : 0;
+    }
+
+    private static boolean tryTake(AtomicInteger counter, int quantity) {
+        int current;
+        do {
+            current = counter.get();
+            if (current < quantity) {
+                return false;
+            }
+        } while (!counter.compareAndSet(current, current - quantity));
+        return true;
+    }
+
+    private boolean startedSince(Long bookId, long started) {
+        Activity change = activity.get(bookId);
+        return change != null && change.started.get() != started;
+    }
+
+    void foldJournal() {
+        try {
+            for (int i = 0; i < MAX_FOLDS_PER_RUN; i++) {
+                List<Long> bookIds = foldTimer.record(() ->
+                        transactionTemplate.execute(status -> jdbcTemplate.queryForList(FOLD_SQL, Long.class, foldBatchSize)));
+                if (bookIds == null || bookIds.isEmpty()) {
+                    return;
+                }
+                bookIds.forEach(bookCache::evict);
+            }
+        } catch (RuntimeException e) {
+            // Rows stay in the journal and are folded on the next run
+            foldFailures.increment();
+            log.warn("Inventory journal fold failed, will retry: {}", e.getMessage());
+        }
+    }
+
+    void reconcile() {
+        try {
+            List<Long> bookIds = new ArrayList<>(available.keySet());
+            for (int from = 0; from < bookIds.size(); from += RECONCILE_CHUNK_SIZE) {
+                List<Long> chunk = bookIds.subList(from, Math.min(from + RECONCILE_CHUNK_SIZE, bookIds.size()));
+                // Only books with nothing in flight before the query and no new change by the comparison
+                // can be judged; anything else is a change the database and memory have not both seen yet
+                Map<Long, Long> quiet = new HashMap<>();
+                for (Long bookId : chunk) {
+                    Activity change = activity.get(bookId);
+                    if (change == null) {
+                        quiet.put(bookId, 0L);
+                    } else {
+                        long started = change.started.get();
+                        if (change.inFlight.get() == 0) {
+                            quiet.put(bookId, started);
+                        }
+                    }
+                }
+                if (quiet.isEmpty()) {
+                    continue;
+                }
+
+                Map<Long, Integer> stored = new HashMap<>();
+                for (Object[] row : journalRepository.findAvailableByBookIdIn(quiet.keySet())) {
+                    stored.put((Long) row[0], ((Number) row[1]).intValue());
+                }
+
+                for (Map.Entry<Long, Long> entry : quiet.entrySet()) {
+                    Long bookId = entry.getKey();
+                    Integer stock = stored.get(bookId);
+                    if (stock == null) {
+                        available.remove(bookId);
+                        continue;
+                    }
+                    AtomicInteger counter = available.get(bookId);
+                    int difference = counter != null ? stock - heldUnits(bookId) - counter.get() : 0;
+                    if (difference == 0 || startedSince(bookId, entry.getValue())) {
+                        continue;
+                    }
+                    counter.addAndGet(difference);
+                    driftCorrections.increment();
+                    log.warn("Inventory ledger corrected book {} by {} units", bookId, difference);
+                }
+            }
+        } catch (RuntimeException e) {
+            log.warn("Inventory reconciliation failed, will retry: {}", e.getMessage());
+        }
+    }
+
+    // Changes to one book's stock that have reached memory or the journal but not yet both
+    private static final class Activity {
+        private final AtomicLong started = new AtomicLong();
+        private final AtomicInteger inFlight = new AtomicInteger();
+
+        void end() {
+            inFlight.decrementAndGet();
+        }
+    }
+}
@@ -0,0 +1,166 @@
+package com.bookstore.service;
+
+import com.bookstore.entity.Order;
+import com.bookstore.exception.BookstoreExceptions.*;
+import com.bookstore.repository.OrderItemRepository;
+import com.bookstore.repository.OrderRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+// Accounting export of orders and their line items over a date range.
+// Orders are walked by keyset in chunks; each chunk costs one order query and one line-item query,
+// is written to the response and then dropped, so heap use does not grow with the range.
+@Service
+@RequiredArgsConstructor
+public class OrderExportService {
+
+    private static final int CHUNK_SIZE = 500;
+
+    private static final String[] CSV_HEADER = {
+            "orderNumber", "createdAt", "status", "customerEmail", "customerName", "paymentMethod",
+            "subtotal", "tax", "shippingCost", "total",
+            "bookId", "isbn", "title", "quantity", "priceAtPurchase", "lineTotal"};
+
+    private final OrderRepository orderRepository;
+    private final OrderItemRepository orderItemRepository;
+    private final ObjectMapper objectMapper;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    // Exports orders created in [start, end). CSV has one row per line item; NDJSON one order per line.
+    public void exportOrders(OutputStream body, LocalDateTime start, LocalDateTime end, DataFormat format)
+            throws IOException {
+        if (!start.isBefore(end)) {
+            throw new BadRequestException("startDate must be before endDate");
+        }
+
+        Writer out = new BufferedWriter(new OutputStreamWriter(body, StandardCharsets.UTF_8));
+        if (format == DataFormat.CSV) {
+            CsvWriter.writeRow(out, (Object[]) CSV_HEADER);
+        }
+
+        LocalDateTime afterCreatedAt = start;
+        Long afterId = 0L;
+        while (true) {
+            List<Object[]> rows = orderRepository.findExportChunk(
+                    start, end, afterCreatedAt, afterId, PageRequest.of(0, CHUNK_SIZE));
+            if (rows.isEmpty()) {
+                break;
+            }
+
+            List<Order> orders = new ArrayList<>(rows.size());
+            for (Object[] row : rows) {
+                orders.add((Order) row[0]);
+            }
+            Map<Long, List<Object[]>> linesByOrder = new HashMap<>();
+            for (Object[] line : orderItemRepository.findExportLinesByOrderIdIn(
+                    orders.stream().map(Order::getId).collect(Collectors.toList()))) {
+                linesByOrder.computeIfAbsent((Long) line[0], id -> new ArrayList<>()).add(line);
+            }
+
+            for (Object[] row : rows) {
+                Order order = (Order) row[0];
+                String email = (String) row[1];
+                String name = row[2] + " " + row[3];
+                List<Object[]> lines = linesByOrder.getOrDefault(order.getId(), List.of());
+                if (format == DataFormat.CSV) {
+                    writeCsv(out, order, email, name, lines);
+                } else {
+                    writeNdjson(out, order, email, name, lines);
+                }
+            }
+            out.flush();
+
+            Order last = orders.get(orders.size() - 1);
+            afterCreatedAt = last.getCreatedAt();
+            afterId = last.getId();
+            // The written orders are no longer needed in the persistence context
+            entityManager.clear();
+
+            if (rows.size() < CHUNK_SIZE) {
+                break;
+            }
+        }
+        out.flush();
+    }
+
+    private void writeCsv(Writer out, Order order, String email, String name, List<Object[]> lines) throws IOException {
+        Object[] orderColumns = orderColumns(order, email, name);
+        if (lines.isEmpty()) {
+            CsvWriter.writeRow(out, orderColumns);
+            return;
+        }
+        for (Object[] line : lines) {
+            Integer quantity = (Integer) line[4];
+            BigDecimal price = (BigDecimal) line[5];
+            Object[] values = new Object[CSV_HEADER.length];
+            System.arraycopy(orderColumns, 0, values, 0, orderColumns.length);
+            values[10] = line[1];
+            values[11] = line[2];
+            values[12] = line[3];
+            values[13] = quantity;
+            values[14] = price;
+            values[15] = price.multiply(BigDecimal.valueOf(quantity));
+            CsvWriter.writeRow(out, values);
+        }
+    }
+
+    private static Object[] orderColumns(Order order, String email, String name) {
+        return new Object[]{
+                order.getOrderNumber(), order.getCreatedAt(), order.getStatus(), email, name,
+                order.getPaymentMethod(), order.getSubtotal(), order.getTax(), order.getShippingCost(),
+                order.getTotal()};
+    }
+
+    private void writeNdjson(Writer out, Order order, String email, String name, List<Object[]> lines)
+            throws IOException {
+        List<Map<String, Object>> items = new ArrayList<>(lines.size());
+        for (Object[] line : lines) {
+            Integer quantity = (Integer) line[4];
+            BigDecimal price = (BigDecimal) line[5];
+            Map<String, Object> item = new LinkedHashMap<>();
+            item.put("bookId", line[1]);
+            item.put("isbn", line[2]);
+            item.put("title", line[3]);
+            item.put("quantity", quantity);
+            item.put("priceAtPurchase", price);
+            item.put("lineTotal", price.multiply(BigDecimal.valueOf(quantity)));
+            items.add(item);
+        }
+
+        Map<String, Object> row = new LinkedHashMap<>();
+        row.put("orderNumber", order.getOrderNumber());
+        row.put("createdAt", order.getCreatedAt());
+        row.put("status", order.getStatus());
+        row.put("customerEmail", email);
+        row.put("customerName", name);
+        row.put("paymentMethod", order.getPaymentMethod());
+        row.put("subtotal", order.getSubtotal());
+        row.put("tax", order.getTax());
+        row.put("shippingCost", order.getShippingCost());
+        row.put("total", order.getTotal());
+        row.put("items", items);
+        out.write(objectMapper.writeValueAsString(row));
+        out.write('\n');
+    }
+}
@@ -0,0 +1,150 @@
+package com.bookstore.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.jdbc.datasource.SimpleDriverDataSource;
+import org.springframework.stereotype.Component;
+
+import jakarta.annotation.PreDestroy;
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+// Node id for order numbers. Set bookstore.order-number.node-id to pin one per instance; left unset,
+// each instance leases a free id with a PostgreSQL session advisory lock, so two running instances
+// can never share one. The lock lives on a dedicated connection outside the pool and goes away with
+// its session, so the id of an instance that died is free again once its connection is gone.
+@Component
+@Slf4j
+public class OrderNodeLease {
+
+    // pg_try_advisory_lock(int, int) key space, "ordr"; the node id is the second key
+    private static final int LOCK_SPACE = 0x6f726472;
+    private static final int CHECK_SECONDS = 10;
+
+    private final DataSource dataSource;
+    private final long nodeId;
+    private final ScheduledExecutorService checker;
+
+    private Connection connection;
+    // Cleared if the lease connection drops and the id is taken before it can be locked again
+    private volatile boolean held = true;
+
+    public OrderNodeLease(
+            DataSourceProperties dataSourceProperties,
+            @Value("${bookstore.order-number.node-id:-1}") long configuredNodeId) {
+        if (configuredNodeId > SnowflakeOrderNumberGenerator.MAX_NODE_ID) {
+            throw new IllegalStateException(
+                    "bookstore.order-number.node-id must be between 0 and " + SnowflakeOrderNumberGenerator.MAX_NODE_ID);
+        }
+        if (configuredNodeId >= 0) {
+            this.dataSource = null;
+            this.checker = null;
+            this.nodeId = configuredNodeId;
+            return;
+        }
+
+        this.dataSource = dataSourceProperties.initializeDataSourceBuilder().type(SimpleDriverDataSource.class).build();
+        this.nodeId = lease();
+        log.info("Leased order number node id {}", nodeId);
+
+        this.checker = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "order-node-lease");
+            thread.setDaemon(true);
+            return thread;
+        });
+        checker.scheduleWithFixedDelay(this::check, CHECK_SECONDS, CHECK_SECONDS, TimeUnit.SECONDS);
+    }
+
+    @PreDestroy
+    void release() throws InterruptedException {
+        if (checker == null) {
+            return;
+        }
+        checker.shutdown();
+        checker.awaitTermination(10, TimeUnit.SECONDS);
+        closeQuietly();
+    }
+
+    public long nodeId() {
+        return nodeId;
+    }
+
+    public boolean isHeld() {
+        return held;
+    }
+
+    private long lease() {
+        try {
+            connection = dataSource.getConnection();
+            for (int candidate = 0; candidate <= SnowflakeOrderNumberGenerator.MAX_NODE_ID; candidate++) {
+                if (tryLock(candidate)) {
+                    return candidate;
+                }
+            }
+        } catch (SQLException e) {
+            closeQuietly();
+            throw new IllegalStateException(
+                    "Could not lease an order number node id - set bookstore.order-number.node-id", e);
+        }
+        closeQuietly();
+        throw new IllegalStateException("All " + (SnowflakeOrderNumberGenerator.MAX_NODE_ID + 1) +
+                " order number node ids are leased - set bookstore.order-number.node-id");
+    }
+
+    private boolean tryLock(long candidate) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement("SELECT pg_try_advisory_lock(?, ?)")) {
+            statement.setInt(1, LOCK_SPACE);
+            statement.setInt(2, (int) candidate);
+            try (ResultSet rs = statement.executeQuery()) {
+                rs.next();
+                return rs.getBoolean(1);
+            }
+        }
+    }
+
+    // A dropped connection releases the lock; take the same id back before anyone else can
+    void check() {
+        try {
+            boolean connected = connection != null && connection.isValid(2);
+            if (held && connected) {
+                return;
+            }
+            if (!connected) {
+                closeQuietly();
+                connection = dataSource.getConnection();
+            }
+            if (tryLock(nodeId)) {
+                if (!held) {
+                    log.info("Order number node id {} leased again", nodeId);
+                }
+                held = true;
+            } else if (held) {
+                held = false;
+                log.error("Order number node id {} was leased by another instance while the lease connection " +
+                        "was down; checkouts are refused until it is free again", nodeId);
+            }
+        } catch (SQLException | RuntimeException e) {
+            // While the database is unreachable nobody else can lease the id either
+            log.warn("Could not check the order number node id lease: {}", e.getMessage());
+        }
+    }
+
+    private void closeQuietly() {
+        if (connection == null) {
+            return;
+        }
+        try {
+            connection.close();
+        } catch (SQLException ignored) {
+            // Closing is only best effort; the session ends with the connection either way
+        }
+        connection = null;
+    }
+}
@@ -0,0 +1,7 @@
+package com.bookstore.service;
+
+// Source of the customer-facing order numbers stored in orders.order_number
+public interface OrderNumberGenerator {
+
+    String next();
+}
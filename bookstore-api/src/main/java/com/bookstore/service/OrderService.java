@@ -1,14 +1,18 @@
 package com.bookstore.service;
 
 import com.bookstore.dto.request.CheckoutRequest;
+import com.bookstore.dto.request.PageCursor;
 import com.bookstore.dto.request.UpdateOrderStatusRequest;
+import com.bookstore.dto.response.CursorPageResponse;
 import com.bookstore.dto.response.OrderResponse;
+import com.bookstore.dto.response.OrderSummaryResponse;
 import com.bookstore.dto.response.PageResponse;
 import com.bookstore.entity.*;
 import com.bookstore.exception.BookstoreExceptions.*;
 import com.bookstore.repository.*;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
@@ -18,19 +22,29 @@ import org.springframework.transaction.annotation.Transactional;
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.List;
-import java.util.UUID;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
 public class OrderService {
 
+    private static final int MAX_HISTORY_PAGE_SIZE = 100;
+
     private final OrderRepository orderRepository;
     private final ShoppingCartRepository cartRepository;
-    private final BookRepository bookRepository;
     private final UserRepository userRepository;
     private final CartItemRepository cartItemRepository;
+    private final BookCache bookCache;
+    private final SalesAggregateService salesAggregateService;
+    private final CartStore cartStore;
+    private final InventoryLedger inventoryLedger;
+    private final CartReservations cartReservations;
+    private final OrderNumberGenerator orderNumberGenerator;
 
     public OrderResponse getOrderById(Long orderId, Long userId) {
         Order order = orderRepository.findByIdWithItems(orderId)
@@ -66,17 +80,39 @@ public class OrderService {
         return OrderResponse.fromEntity(order);
     }
 
-    public List<OrderResponse> getOrderHistory(Long userId) {
-        return orderRepository.findByUserIdOrderByCreatedAtDesc(userId).stream()
-                .map(OrderResponse::fromEntity)
-                .collect(Collectors.toList());
+    // A customer's history one bounded cursor page at a time; the page size is capped so a single
+    // request never materializes more than MAX_HISTORY_PAGE_SIZE orders
+    public CursorPageResponse<OrderResponse> getOrderHistory(Long userId, String cursor, int size) {
+        if (size < 1) {
+            throw new BadRequestException("Page size must be at least 1");
+        }
+        size = Math.min(size, MAX_HISTORY_PAGE_SIZE);
+        PageCursor after = PageCursor.decode(cursor);
+
+        // Fetch one extra row to know whether another page follows
+        Pageable limit = PageRequest.of(0, size + 1);
+        List<Order> orders = after == null
+                ? orderRepository.findUserKeysetFirstPage(userId, limit)
+                : orderRepository.findUserKeysetPageAfter(userId, after.getCreatedAt(), after.getId(), limit);
+
+        String nextCursor = null;
+        if (orders.size() > size) {
+            orders = orders.subList(0, size);
+            Order lastOrder = orders.get(size - 1);
+            nextCursor = new PageCursor(lastOrder.getCreatedAt(), lastOrder.getId()).encode();
+        }
+
+        return CursorPageResponse.of(toResponses(orders), size, nextCursor);
     }
 
     public PageResponse<OrderResponse> getUserOrders(Long userId, int page, int size) {
         Pageable pageable = PageRequest.of(page, size, Sort.by("createdAt").descending());
-        Page<OrderResponse> orderPage = orderRepository.findByUserId(userId, pageable)
-                .map(OrderResponse::fromEntity);
-        return PageResponse.fromPage(orderPage);
+        return PageResponse.fromPage(toResponsePage(orderRepository.findByUserId(userId, pageable)));
+    }
+
+    public PageResponse<OrderSummaryResponse> getUserOrderSummaries(Long userId, int page, int size) {
+        Pageable pageable = PageRequest.of(page, size, Sort.by("createdAt").descending());
+        return PageResponse.fromPage(orderRepository.findSummariesByUserId(userId, pageable));
     }
 
     public PageResponse<OrderResponse> getAllOrders(int page, int size, String sortBy, String sortDir) {
@@ -85,20 +121,55 @@ public class OrderService {
                 : Sort.by(sortBy).ascending();
         Pageable pageable = PageRequest.of(page, size, sort);
 
-        Page<OrderResponse> orderPage = orderRepository.findAll(pageable)
-                .map(OrderResponse::fromEntity);
-        return PageResponse.fromPage(orderPage);
+        return PageResponse.fromPage(toResponsePage(orderRepository.findAll(pageable)));
+    }
+
+    public PageResponse<OrderSummaryResponse> getAllOrderSummaries(int page, int size, String sortBy, String sortDir) {
+        Sort sort = sortDir.equalsIgnoreCase("desc")
+                ? Sort.by(sortBy).descending()
+                : Sort.by(sortBy).ascending();
+        return PageResponse.fromPage(orderRepository.findAllSummaries(PageRequest.of(page, size, sort)));
+    }
+
+    // Capped like the customer history, so size + 1 cannot overflow and a page stays bounded
+    public CursorPageResponse<OrderResponse> getAllOrdersByCursor(String cursor, int size) {
+        if (size < 1) {
+            throw new BadRequestException("Page size must be at least 1");
+        }
+        size = Math.min(size, MAX_HISTORY_PAGE_SIZE);
+        PageCursor after = PageCursor.decode(cursor);
+
+        // Fetch one extra row to know whether another page follows
+        Pageable limit = PageRequest.of(0, size + 1);
+        List<Order> orders = after == null
+                ? orderRepository.findFirstKeysetPage(limit)
+                : orderRepository.findKeysetPageAfter(after.getCreatedAt(), after.getId(), limit);
+
+        String nextCursor = null;
+        if (orders.size() > size) {
+            orders = orders.subList(0, size);
+            Order lastOrder = orders.get(size - 1);
+            nextCursor = new PageCursor(lastOrder.getCreatedAt(), lastOrder.getId()).encode();
+        }
+
+        return CursorPageResponse.of(toResponses(orders), size, nextCursor);
     }
 
     public PageResponse<OrderResponse> getOrdersByStatus(OrderStatus status, int page, int size) {
         Pageable pageable = PageRequest.of(page, size, Sort.by("createdAt").descending());
-        Page<OrderResponse> orderPage = orderRepository.findByStatus(status, pageable)
-                .map(OrderResponse::fromEntity);
-        return PageResponse.fromPage(orderPage);
+        return PageResponse.fromPage(toResponsePage(orderRepository.findByStatus(status, pageable)));
+    }
+
+    public PageResponse<OrderSummaryResponse> getOrderSummariesByStatus(OrderStatus status, int page, int size) {
+        Pageable pageable = PageRequest.of(page, size, Sort.by("createdAt").descending());
+        return PageResponse.fromPage(orderRepository.findSummariesByStatus(status, pageable));
     }
 
     @Transactional
     public OrderResponse checkout(Long userId, CheckoutRequest request) {
+        // Buffered cart changes must be in the database before the cart is read below
+        cartStore.flush(userId);
+
         // Get user's cart with items and books
         ShoppingCart cart = cartRepository.findByUserIdWithItemsAndBooks(userId)
                 .orElseThrow(() -> new ResourceNotFoundException("Cart not found for user"));
@@ -111,26 +182,16 @@ public class OrderService {
         List<CartItemData> cartItemsData = new ArrayList<>();
         for (CartItem cartItem : cart.getItems()) {
             Book book = cartItem.getBook();
-
-            // Validate stock availability
-            if (book.getQuantity() < cartItem.getQuantity()) {
-                throw new InsufficientStockException(
-                        "Insufficient stock for book: " + book.getTitle() +
-                                ". Available: " + book.getQuantity() + ", Requested: " + cartItem.getQuantity());
-            }
-
-            // Store the data we need
             cartItemsData.add(new CartItemData(
-                    book.getId(),
-                    book.getTitle(),
-                    book.getAuthor(),
-                    book.getIsbn(),
+                    book,
                     book.getPrice(),
-                    cartItem.getQuantity(),
-                    book.getQuantity() // current stock
+                    cartItem.getQuantity()
             ));
         }
 
+        // Take stock in a fixed order so concurrent multi-line checkouts cannot deadlock
+        cartItemsData.sort(Comparator.comparing(itemData -> itemData.book.getId()));
+
         // Store cart ID for later cleanup
         Long cartId = cart.getId();
 
@@ -140,7 +201,7 @@ public class OrderService {
 
         // Create order
         Order order = Order.builder()
-                .orderNumber(generateOrderNumber())
+                .orderNumber(orderNumberGenerator.next())
                 .user(user)
                 .status(OrderStatus.PENDING)
                 .shippingAddress(request.getShippingAddress())
@@ -154,20 +215,24 @@ public class OrderService {
 
         // Create order items and update inventory using the copied data
         for (CartItemData itemData : cartItemsData) {
-            Book book = bookRepository.findById(itemData.bookId)
-                    .orElseThrow(() -> new ResourceNotFoundException("Book not found"));
+            // A line still covered by its cart hold already has its stock set aside; anything else is a
+            // conditional decrement that fails instead of overselling under concurrent checkouts
+            Long bookId = itemData.book.getId();
+            if (!cartReservations.convert(userId, bookId, itemData.quantity)
+                    && !inventoryLedger.take(bookId, itemData.quantity)) {
+                throw new InsufficientStockException(
+                        "Insufficient stock for book: " + itemData.book.getTitle() +
+                                ". Requested: " + itemData.quantity);
+            }
+            bookCache.evict(bookId);
 
             OrderItem orderItem = OrderItem.builder()
-                    .book(book)
+                    .book(itemData.book)
                     .quantity(itemData.quantity)
                     .priceAtPurchase(itemData.price)
                     .build();
 
             order.addItem(orderItem);
-
-            // Reduce book quantity
-            book.setQuantity(book.getQuantity() - itemData.quantity);
-            bookRepository.save(book);
         }
 
         // Calculate totals
@@ -175,12 +240,15 @@ public class OrderService {
 
         // Save order first
         order = orderRepository.save(order);
+        salesAggregateService.recordOrderPlaced(order);
 
         // Store order ID
         Long orderId = order.getId();
 
         // Clear the cart using direct delete query only (don't touch the managed cart entity)
         cartItemRepository.deleteAllByCartId(cartId);
+        cartStore.invalidate(userId);
+        TransactionHooks.afterCommit(() -> cartReservations.releaseAll(userId));
 
         // Fetch the saved order with items for response
         Order savedOrder = orderRepository.findByIdWithItems(orderId)
@@ -234,9 +302,8 @@ public class OrderService {
             case CANCELLED:
                 // Restore inventory when cancelling
                 for (OrderItem item : order.getItems()) {
-                    Book book = item.getBook();
-                    book.setQuantity(book.getQuantity() + item.getQuantity());
-                    bookRepository.save(book);
+                    inventoryLedger.restore(item.getBook().getId(), item.getQuantity());
+                    bookCache.evict(item.getBook().getId());
                 }
                 break;
         }
@@ -246,6 +313,7 @@ public class OrderService {
         }
 
         order = orderRepository.save(order);
+        salesAggregateService.recordStatusChange(order, oldStatus, newStatus);
         return OrderResponse.fromEntity(order);
     }
 
@@ -271,21 +339,18 @@ public class OrderService {
 
         // Restore inventory
         for (OrderItem item : order.getItems()) {
-            Book book = item.getBook();
-            book.setQuantity(book.getQuantity() + item.getQuantity());
-            bookRepository.save(book);
+            inventoryLedger.restore(item.getBook().getId(), item.getQuantity());
+            bookCache.evict(item.getBook().getId());
         }
 
+        OrderStatus oldStatus = order.getStatus();
         order.setStatus(OrderStatus.CANCELLED);
         order = orderRepository.save(order);
+        salesAggregateService.recordStatusChange(order, oldStatus, OrderStatus.CANCELLED);
 
         return OrderResponse.fromEntity(order);
     }
 
-    private String generateOrderNumber() {
-        return "ORD-" + UUID.randomUUID().toString().substring(0, 8).toUpperCase();
-    }
-
     private void validateStatusTransition(OrderStatus from, OrderStatus to) {
         // Don't allow transitioning to the same status
         if (from == to) {
@@ -299,25 +364,38 @@ public class OrderService {
         }
     }
 
+    // Maps a page of orders, loading users, items and books for the whole page in one query
+    private Page<OrderResponse> toResponsePage(Page<Order> page) {
+        return new PageImpl<>(toResponses(page.getContent()), page.getPageable(), page.getTotalElements());
+    }
+
+    private List<OrderResponse> toResponses(List<Order> orders) {
+        if (orders.isEmpty()) {
+            return new ArrayList<>();
+        }
+
+        List<Long> ids = orders.stream()
+                .map(Order::getId)
+                .collect(Collectors.toList());
+        Map<Long, Order> ordersById = orderRepository.findAllWithDetailsByIdIn(ids).stream()
+                .collect(Collectors.toMap(Order::getId, Function.identity()));
+        return ids.stream()
+                .map(ordersById::get)
+                .filter(Objects::nonNull)
+                .map(OrderResponse::fromEntity)
+                .collect(Collectors.toList());
+    }
+
     // Inner class to hold cart item data temporarily
     private static class CartItemData {
-        final Long bookId;
-        final String title;
-        final String author;
-        final String isbn;
+        final Book book;
         final BigDecimal price;
         final int quantity;
-        final int currentStock;
-
-        CartItemData(Long bookId, String title, String author, String isbn,
-                     BigDecimal price, int quantity, int currentStock) {
-            this.bookId = bookId;
-            this.title = title;
-            this.author = author;
-            this.isbn = isbn;
+
+        CartItemData(Book book, BigDecimal price, int quantity) {
+            this.book = book;
             this.price = price;
             this.quantity = quantity;
-            this.currentStock = currentStock;
         }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,98 @@
+package com.bookstore.service;
+
+import com.bookstore.repository.BookRepository;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+// Ids of the rare books, so checkout admission can tell whether a cart holds one without looking up
+// every book in it. Changes made through this instance apply on commit; the set is reloaded
+// periodically to pick up changes made through other instances.
+@Component
+@Slf4j
+public class RareBookIndex {
+
+    private final BookRepository bookRepository;
+    private final long refreshSeconds;
+    private final ScheduledExecutorService refresher;
+
+    // null until the first load
+    private volatile Set<Long> ids;
+
+    public RareBookIndex(
+            BookRepository bookRepository,
+            @Value("${bookstore.checkout.admission.rare-refresh-seconds:60}") long refreshSeconds) {
+        this.bookRepository = bookRepository;
+        this.refreshSeconds = refreshSeconds;
+        this.refresher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "rare-book-refresh");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        reload();
+        refresher.scheduleWithFixedDelay(this::reload, refreshSeconds, refreshSeconds, TimeUnit.SECONDS);
+    }
+
+    @PreDestroy
+    void stop() throws InterruptedException {
+        refresher.shutdown();
+        refresher.awaitTermination(10, TimeUnit.SECONDS);
+    }
+
+    public boolean isReady() {
+        return ids != null;
+    }
+
+    // Only meaningful once isReady()
+    public boolean isEmpty() {
+        Set<Long> current = ids;
+        return current != null && current.isEmpty();
+    }
+
+    public boolean isRare(Long bookId) {
+        Set<Long> current = ids;
+        return current == null || current.contains(bookId);
+    }
+
+    public void put(Long bookId, Boolean rare) {
+        TransactionHooks.afterCommit(() -> {
+            Set<Long> current = ids;
+            if (current == null) {
+                return;
+            }
+            if (Boolean.TRUE.equals(rare)) {
+                current.add(bookId);
+            } else {
+                current.remove(bookId);
+            }
+        });
+    }
+
+    public void remove(Long bookId) {
+        put(bookId, false);
+    }
+
+    void reload() {
+        try {
+            Set<Long> loaded = ConcurrentHashMap.newKeySet();
+            loaded.addAll(bookRepository.findRareBookIds());
+            ids = loaded;
+        } catch (RuntimeException e) {
+            // Never let an exception cancel the scheduled task; the previous set stays in use
+            log.warn("Could not reload rare book ids: {}", e.getMessage());
+        }
+    }
+}
@@ -1,9 +1,14 @@
 package com.bookstore.service;
 
+import com.bookstore.entity.Book;
+import com.bookstore.entity.OrderStatus;
 import com.bookstore.repository.BookRepository;
+import com.bookstore.repository.BookSalesRepository;
+import com.bookstore.repository.DailySalesRepository;
 import com.bookstore.repository.OrderItemRepository;
-import com.bookstore.repository.OrderRepository;
+import com.bookstore.repository.OrderStatusCountRepository;
 import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 
 import java.math.BigDecimal;
@@ -17,9 +22,14 @@ import java.util.stream.Collectors;
 @RequiredArgsConstructor
 public class ReportService {
 
+    private static final int MAX_BEST_SELLERS = 100;
+
     private final BookRepository bookRepository;
-    private final OrderRepository orderRepository;
+    private final DailySalesRepository dailySalesRepository;
+    private final OrderStatusCountRepository orderStatusCountRepository;
+    private final BookSalesRepository bookSalesRepository;
     private final OrderItemRepository orderItemRepository;
+    private final BestSellerTracker bestSellerTracker;
 
     public Map<String, Object> getInventoryReport() {
         Map<String, Object> report = new HashMap<>();
@@ -49,34 +59,55 @@ public class ReportService {
         return report;
     }
 
+    // Reads the incrementally maintained aggregates (see SalesAggregateService) instead of scanning orders
     public Map<String, Object> getSalesReport(LocalDateTime startDate, LocalDateTime endDate) {
         Map<String, Object> report = new HashMap<>();
         
         // Total revenue
-        BigDecimal totalRevenue = orderRepository.getTotalRevenue();
+        BigDecimal totalRevenue = dailySalesRepository.getTotalRevenue();
         report.put("totalRevenue", totalRevenue != null ? totalRevenue : BigDecimal.ZERO);
         
-        // Revenue in date range
+        // Revenue in date range (whole days)
         if (startDate != null && endDate != null) {
-            BigDecimal periodRevenue = orderRepository.getRevenueByDateRange(startDate, endDate);
+            BigDecimal periodRevenue = dailySalesRepository.getRevenueByDateRange(
+                    startDate.toLocalDate(), endDate.toLocalDate());
             report.put("periodRevenue", periodRevenue != null ? periodRevenue : BigDecimal.ZERO);
         }
         
         // Order counts by status
         Map<String, Long> ordersByStatus = new HashMap<>();
-        for (com.bookstore.entity.OrderStatus status : com.bookstore.entity.OrderStatus.values()) {
-            Long count = orderRepository.countByStatus(status);
-            ordersByStatus.put(status.name(), count);
+        for (OrderStatus status : OrderStatus.values()) {
+            ordersByStatus.put(status.name(), 0L);
+        }
+        for (Object[] row : orderStatusCountRepository.getCountsByStatus()) {
+            ordersByStatus.put(((OrderStatus) row[0]).name(), ((Number) row[1]).longValue());
         }
         report.put("ordersByStatus", ordersByStatus);
         
         // Total orders
-        report.put("totalOrders", orderRepository.count());
+        report.put("totalOrders", ordersByStatus.values().stream().mapToLong(Long::longValue).sum());
         
         // Best selling books
-        List<Object[]> bestSellers = orderItemRepository.findBestSellingBooks();
-        List<Map<String, Object>> bestSellingBooks = bestSellers.stream()
-                .limit(10)
+        List<Map<String, Object>> bestSellingBooks = getBestSellers(10, null, null);
+        report.put("bestSellingBooks", bestSellingBooks);
+        
+        return report;
+    }
+
+    // Top-K best sellers, all time or within a date window; K is capped so the result stays small
+    public List<Map<String, Object>> getBestSellers(int limit, LocalDateTime startDate, LocalDateTime endDate) {
+        int k = Math.max(1, Math.min(limit, MAX_BEST_SELLERS));
+
+        List<Object[]> rows;
+        if (startDate != null && endDate != null) {
+            rows = orderItemRepository.findBestSellingBooks(startDate, endDate, PageRequest.of(0, k));
+        } else if (bestSellerTracker.isEnabled()) {
+            rows = fromTracker(bestSellerTracker.topK(k));
+        } else {
+            rows = bookSalesRepository.findBestSellingBooks(PageRequest.of(0, k));
+        }
+
+        return rows.stream()
                 .map(row -> {
                     Map<String, Object> book = new HashMap<>();
                     book.put("bookId", row[0]);
@@ -85,13 +116,10 @@ public class ReportService {
                     return book;
                 })
                 .collect(Collectors.toList());
-        report.put("bestSellingBooks", bestSellingBooks);
-        
-        return report;
     }
 
     public List<Map<String, Object>> getDailySalesReport() {
-        List<Object[]> data = orderRepository.getDailySalesReport();
+        List<Object[]> data = dailySalesRepository.getDailySalesReport();
         return data.stream()
                 .map(row -> {
                     Map<String, Object> day = new HashMap<>();
@@ -102,4 +130,15 @@ public class ReportService {
                 })
                 .collect(Collectors.toList());
     }
+
+    // Attaches titles to the tracker's (bookId, units) ranking with a single lookup
+    private List<Object[]> fromTracker(List<Map.Entry<Long, Long>> ranking) {
+        Map<Long, String> titles = bookRepository.findAllById(
+                        ranking.stream().map(Map.Entry::getKey).collect(Collectors.toList())).stream()
+                .collect(Collectors.toMap(Book::getId, Book::getTitle));
+        return ranking.stream()
+                .filter(entry -> titles.containsKey(entry.getKey()))
+                .map(entry -> new Object[]{entry.getKey(), titles.get(entry.getKey()), entry.getValue()})
+                .collect(Collectors.toList());
+    }
 }
@@ -0,0 +1,90 @@
+package com.bookstore.service;
+
+import com.bookstore.entity.Order;
+import com.bookstore.entity.OrderItem;
+import com.bookstore.entity.OrderStatus;
+import com.bookstore.repository.BookSalesRepository;
+import com.bookstore.repository.DailySalesRepository;
+import com.bookstore.repository.OrderRepository;
+import com.bookstore.repository.OrderStatusCountRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.concurrent.ThreadLocalRandom;
+
+// Keeps the report aggregates in step with orders, inside the same transaction as the order change
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class SalesAggregateService {
+
+    // Rows per day/status that concurrent writers are spread over
+    private static final int SLOTS = 8;
+
+    private final DailySalesRepository dailySalesRepository;
+    private final OrderStatusCountRepository orderStatusCountRepository;
+    private final BookSalesRepository bookSalesRepository;
+    private final OrderRepository orderRepository;
+    private final BestSellerTracker bestSellerTracker;
+
+    @Transactional
+    public void recordOrderPlaced(Order order) {
+        LocalDate saleDate = order.getCreatedAt().toLocalDate();
+        dailySalesRepository.addSales(saleDate, randomSlot(), 1, order.getTotal());
+        orderStatusCountRepository.addCount(order.getStatus().name(), randomSlot(), 1);
+        for (OrderItem item : order.getItems()) {
+            bookSalesRepository.addUnits(item.getBook().getId(), item.getQuantity());
+            bestSellerTracker.record(item.getBook().getId(), item.getQuantity());
+        }
+    }
+
+    @Transactional
+    public void recordStatusChange(Order order, OrderStatus from, OrderStatus to) {
+        int slot = randomSlot();
+        orderStatusCountRepository.addCount(from.name(), slot, -1);
+        orderStatusCountRepository.addCount(to.name(), slot, 1);
+
+        // Cancelled orders no longer count as sales
+        if (to == OrderStatus.CANCELLED && from != OrderStatus.CANCELLED) {
+            LocalDate saleDate = order.getCreatedAt().toLocalDate();
+            dailySalesRepository.addSales(saleDate, slot, -1, order.getTotal().negate());
+            for (OrderItem item : order.getItems()) {
+                bookSalesRepository.addUnits(item.getBook().getId(), -item.getQuantity());
+                bestSellerTracker.record(item.getBook().getId(), -item.getQuantity());
+            }
+        }
+    }
+
+    // Recomputes every aggregate from the orders tables
+    @Transactional
+    public void rebuild() {
+        dailySalesRepository.deleteAllInBatch();
+        orderStatusCountRepository.deleteAllInBatch();
+        bookSalesRepository.deleteAllInBatch();
+
+        dailySalesRepository.rebuildFromOrders();
+        orderStatusCountRepository.rebuildFromOrders();
+        bookSalesRepository.rebuildFromOrders();
+        bestSellerTracker.reset();
+        log.info("Sales aggregates rebuilt from orders");
+    }
+
+    // Backfills the aggregates the first time this runs against an existing database
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional
+    public void backfillIfEmpty() {
+        if (orderStatusCountRepository.count() == 0 && orderRepository.count() > 0) {
+            rebuild();
+        }
+    }
+
+    private static int randomSlot() {
+        return ThreadLocalRandom.current().nextInt(SLOTS);
+    }
+}
@@ -0,0 +1,110 @@
+package com.bookstore.service;
+
+import com.bookstore.exception.BookstoreExceptions.*;
+import jakarta.persistence.EntityManagerFactory;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BooleanSupplier;
+
+// Time-ordered order numbers that cannot collide: 41 bits of milliseconds since 2024-01-01, 10 bits of
+// node id (see OrderNodeLease) and a 12-bit per-millisecond sequence, written as "ORD-" plus 13
+// base-36 digits so they also sort by creation time.
+// No randomness and no lock: the last timestamp/sequence pair is advanced with compare-and-set.
+@Component
+@Slf4j
+public class SnowflakeOrderNumberGenerator implements OrderNumberGenerator {
+
+    static final long MAX_NODE_ID = (1L << 10) - 1;
+
+    private static final long EPOCH_MILLIS = Instant.parse("2024-01-01T00:00:00Z").toEpochMilli();
+    private static final int NODE_BITS = 10;
+    private static final int SEQUENCE_BITS = 12;
+    private static final long SEQUENCE_MASK = (1L << SEQUENCE_BITS) - 1;
+    private static final int DIGITS = 13;
+
+    // Every number this format has produced: ORD- and exactly 13 characters
+    private static final String LATEST_SQL =
+            "SELECT MAX(order_number) FROM orders WHERE order_number LIKE 'ORD-_____________'";
+
+    private final long nodeId;
+    private final BooleanSupplier leaseHeld;
+    // (milliseconds since epoch << SEQUENCE_BITS) | sequence of the last number handed out
+    private final AtomicLong last;
+
+    // Depending on the EntityManagerFactory makes this run after Hibernate has created the orders table
+    @Autowired
+    public SnowflakeOrderNumberGenerator(OrderNodeLease lease, JdbcTemplate jdbcTemplate,
+                                         EntityManagerFactory entityManagerFactory) {
+        this(lease.nodeId(), latestMillis(jdbcTemplate), lease::isHeld);
+    }
+
+    SnowflakeOrderNumberGenerator(long nodeId, long latestMillis, BooleanSupplier leaseHeld) {
+        this.nodeId = nodeId;
+        this.leaseHeld = leaseHeld;
+        // Numbers handed out before a restart can be ahead of the clock (a full sequence carries into
+        // the next millisecond, and the clock may have stepped back since). Starting past the latest
+        // stored millisecond does what waiting for the clock to catch up would, without the wait.
+        this.last = new AtomicLong(latestMillis < 0 ? 0 : (latestMillis << SEQUENCE_BITS) | SEQUENCE_MASK);
+        long ahead = latestMillis - (System.currentTimeMillis() - EPOCH_MILLIS);
+        if (ahead > 0) {
+            log.info("Latest order number is {} ms ahead of the clock; continuing after it", ahead);
+        }
+    }
+
+    @Override
+    public String next() {
+        if (!leaseHeld.getAsBoolean()) {
+            throw new ServiceUnavailableException("Order numbers are temporarily unavailable. Please try again shortly.");
+        }
+        return format(nextId());
+    }
+
+    long nextId() {
+        long now = System.currentTimeMillis() - EPOCH_MILLIS;
+        long previous;
+        long next;
+        do {
+            previous = last.get();
+            // A full sequence carries into the next millisecond and a clock that steps back is ignored,
+            // so values only ever grow
+            next = (now > previous >>> SEQUENCE_BITS) ? now << SEQUENCE_BITS : previous + 1;
+        } while (!last.compareAndSet(previous, next));
+
+        long millis = next >>> SEQUENCE_BITS;
+        long sequence = next & SEQUENCE_MASK;
+        return (millis << (NODE_BITS + SEQUENCE_BITS)) | (nodeId << SEQUENCE_BITS) | sequence;
+    }
+
+    // Millisecond of the newest order number on any node, or -1 when there is none. Any node's latest
+    // is at least this node's latest, so it is a safe place to continue from.
+    private static long latestMillis(JdbcTemplate jdbcTemplate) {
+        String latest = jdbcTemplate.queryForObject(LATEST_SQL, String.class);
+        if (latest == null) {
+            return -1;
+        }
+        try {
+            return Long.parseLong(latest.substring(4), 36) >>> (NODE_BITS + SEQUENCE_BITS);
+        } catch (NumberFormatException e) {
+            log.warn("Ignoring unexpected order number {} when resuming the order number clock", latest);
+            return -1;
+        }
+    }
+
+    static String format(long id) {
+        char[] chars = new char[4 + DIGITS];
+        chars[0] = 'O';
+        chars[1] = 'R';
+        chars[2] = 'D';
+        chars[3] = '-';
+        for (int i = chars.length - 1; i >= 4; i--) {
+            chars[i] = Character.toUpperCase(Character.forDigit((int) (id % 36), 36));
+            id /= 36;
+        }
+        return new String(chars);
+    }
+}
@@ -9,7 +9,6 @@ import com.bookstore.exception.BookstoreExceptions.*;
 import com.bookstore.repository.ShoppingCartRepository;
 import com.bookstore.repository.UserRepository;
 import lombok.RequiredArgsConstructor;
-import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -22,7 +21,8 @@ public class UserService {
 
     private final UserRepository userRepository;
     private final ShoppingCartRepository shoppingCartRepository;
-    private final PasswordEncoder passwordEncoder;
+    private final PasswordHashingService passwordHashingService;
+    private final UserStatusCache userStatusCache;
 
     public List<UserResponse> getAllUsers() {
         return userRepository.findAll().stream()
@@ -62,7 +62,7 @@ public class UserService {
 
         User user = User.builder()
                 .email(request.getEmail())
-                .passwordHash(passwordEncoder.encode(request.getPassword()))
+                .passwordHash(passwordHashingService.encode(request.getPassword()))
                 .firstName(request.getFirstName())
                 .lastName(request.getLastName())
                 .phone(request.getPhone())
@@ -91,6 +91,7 @@ public class UserService {
 
         user.setRole(role);
         user = userRepository.save(user);
+        userStatusCache.evict(id);
 
         // Create cart if user becomes a customer and doesn't have one
         if (role == Role.CUSTOMER && !shoppingCartRepository.existsByUserId(id)) {
@@ -112,6 +113,7 @@ public class UserService {
         user.setFailedLoginAttempts(0);
         user.setLockoutEndTime(null);
         user = userRepository.save(user);
+        userStatusCache.evict(id);
 
         return UserResponse.fromEntity(user);
     }
@@ -123,6 +125,7 @@ public class UserService {
 
         user.setActive(false);
         user = userRepository.save(user);
+        userStatusCache.evict(id);
 
         return UserResponse.fromEntity(user);
     }
@@ -158,11 +161,11 @@ public class UserService {
         User user = userRepository.findById(userId)
                 .orElseThrow(() -> new ResourceNotFoundException("User not found with id: " + userId));
 
-        if (!passwordEncoder.matches(currentPassword, user.getPasswordHash())) {
+        if (!passwordHashingService.matches(currentPassword, user.getPasswordHash())) {
             throw new BadRequestException("Current password is incorrect");
         }
 
-        user.setPasswordHash(passwordEncoder.encode(newPassword));
+        user.setPasswordHash(passwordHashingService.encode(newPassword));
         userRepository.save(user);
     }
 }
@@ -0,0 +1,44 @@
+package com.bookstore.service;
+
+import com.bookstore.entity.Role;
+import com.bookstore.repository.UserRepository;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+// Short-lived view of each user's role and active flag, used by stateless JWT authentication
+// to notice deactivation and role changes without a users lookup on every request
+@Component
+public class UserStatusCache {
+
+    public record UserStatus(String email, Role role, boolean active) {
+    }
+
+    private final UserRepository userRepository;
+    private final Cache<Long, UserStatus> statuses;
+
+    public UserStatusCache(
+            UserRepository userRepository,
+            @Value("${security.jwt.user-status.max-size:100000}") long maxSize,
+            @Value("${security.jwt.user-status.ttl-seconds:30}") long ttlSeconds) {
+        this.userRepository = userRepository;
+        this.statuses = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+                .build();
+    }
+
+    // Returns null if the user no longer exists
+    public UserStatus get(Long userId) {
+        return statuses.get(userId, id -> userRepository.findById(id)
+                .map(user -> new UserStatus(user.getEmail(), user.getRole(), user.isActive()))
+                .orElse(null));
+    }
+
+    public void evict(Long userId) {
+        TransactionHooks.afterCommit(() -> statuses.invalidate(userId));
+    }
+}
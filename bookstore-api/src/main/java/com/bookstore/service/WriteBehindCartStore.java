@@ -0,0 +1,588 @@
+package com.bookstore.service;
+
+import com.bookstore.dto.response.BookResponse;
+import com.bookstore.dto.response.CartItemResponse;
+import com.bookstore.dto.response.CartResponse;
+import com.bookstore.entity.CartItem;
+import com.bookstore.exception.BookstoreExceptions.*;
+import com.bookstore.repository.ShoppingCartRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+
+// Keeps each user's cart in memory and writes changes to PostgreSQL in batches on a background thread.
+// Add/update/remove churn that never reaches checkout costs no transaction on the request path;
+// checkout forces a flush so the order is always built from the persisted cart.
+// Carts live in this JVM only - run the "database" store when several instances share traffic
+// without sticky sessions.
+@Component
+@ConditionalOnProperty(name = "bookstore.cart.store", havingValue = "memory", matchIfMissing = true)
+@Slf4j
+public class WriteBehindCartStore implements CartStore {
+
+    private static final String CREATE_CART_SQL =
+            "INSERT INTO shopping_carts (id, user_id, created_at, updated_at) VALUES (nextval('shopping_carts_seq'), ?, ?, ?) " +
+            "ON CONFLICT (user_id) DO UPDATE SET updated_at = EXCLUDED.updated_at RETURNING id";
+    private static final String TOUCH_CART_SQL =
+            "UPDATE shopping_carts SET updated_at = ? WHERE id = ?";
+    private static final String DELETE_ITEM_SQL =
+            "DELETE FROM cart_items WHERE cart_id = ? AND book_id = ?";
+    // All lines of the batch in one statement, one array per column. Joining books skips lines whose
+    // book was deleted instead of failing the whole batch; RETURNING gives new lines their item ids.
+    private static final String UPSERT_ITEMS_SQL =
+            "INSERT INTO cart_items (id, cart_id, book_id, quantity, added_at) " +
+            "SELECT nextval('cart_items_seq'), l.cart_id, b.id, l.quantity, l.added_at " +
+            "FROM unnest(?::bigint[], ?::bigint[], ?::int[], ?::timestamp[]) AS l(cart_id, book_id, quantity, added_at) " +
+            "JOIN books b ON b.id = l.book_id " +
+            "ON CONFLICT (cart_id, book_id) DO UPDATE SET quantity = EXCLUDED.quantity " +
+            "RETURNING cart_id, book_id, id";
+
+    private final ShoppingCartRepository cartRepository;
+    private final BookService bookService;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final long flushIntervalMs;
+    private final int batchSize;
+    private final long idleNanos;
+
+    private final Map<Long, CartState> carts = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService flusher;
+    private final Timer flushTimer;
+    private final Counter flushFailures;
+
+    public WriteBehindCartStore(
+            ShoppingCartRepository cartRepository,
+            BookService bookService,
+            JdbcTemplate jdbcTemplate,
+            PlatformTransactionManager transactionManager,
+            MeterRegistry meterRegistry,
+            @Value("${bookstore.cart.flush-interval-ms:1000}") long flushIntervalMs,
+            @Value("${bookstore.cart.flush-batch-size:500}") int batchSize,
+            @Value("${bookstore.cart.idle-seconds:1800}") long idleSeconds) {
+        this.cartRepository = cartRepository;
+        this.bookService = bookService;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.flushIntervalMs = flushIntervalMs;
+        this.batchSize = batchSize;
+        this.idleNanos = TimeUnit.SECONDS.toNanos(idleSeconds);
+
+        this.flusher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "cart-flusher");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        this.flushTimer = Timer.builder("cart.store.flush")
+                .register(meterRegistry);
+        this.flushFailures = Counter.builder("cart.store.flush.failures")
+                .register(meterRegistry);
+        Gauge.builder("cart.store.carts", carts, Map::size)
+                .register(meterRegistry);
+        Gauge.builder("cart.store.dirty", this, WriteBehindCartStore::dirtyCount)
+                .register(meterRegistry);
+        // Age of the oldest change not yet in the database
+        Gauge.builder("cart.store.flush.lag", this, WriteBehindCartStore::flushLagSeconds)
+                .baseUnit("seconds")
+                .register(meterRegistry);
+    }
+
+    @PostConstruct
+    void start() {
+        flusher.scheduleWithFixedDelay(this::flushDirty, flushIntervalMs, flushIntervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    void stop() throws InterruptedException {
+        flusher.shutdown();
+        flusher.awaitTermination(10, TimeUnit.SECONDS);
+        // Last chance to persist buffered changes before the datasource goes away
+        flushDirty();
+    }
+
+    @Override
+    public CartResponse getCart(Long userId) {
+        return toResponse(withCart(userId, CartState::snapshot));
+    }
+
+    @Override
+    public Map<Long, Integer> getLineQuantities(Long userId) {
+        return withCart(userId, state -> {
+            Map<Long, Integer> quantities = new HashMap<>();
+            state.lines.forEach((bookId, line) -> quantities.put(bookId, line.quantity()));
+            return quantities;
+        });
+    }
+
+    @Override
+    public CartResponse addItem(Long userId, Long bookId, int quantity) {
+        BookResponse book = bookService.getBookById(bookId);
+
+        Snapshot snapshot = withCart(userId, state -> {
+            Line existing = state.lines.get(bookId);
+            if (existing == null) {
+                if (book.getQuantity() < quantity) {
+                    throw new InsufficientStockException(
+                            "Insufficient stock for book: " + book.getTitle() +
+                            ". Available: " + book.getQuantity() + ", Requested: " + quantity);
+                }
+                state.markDirty();
+                state.lines.put(bookId, new Line(null, quantity, LocalDateTime.now(), state.version));
+            } else {
+                int newQuantity = existing.quantity() + quantity;
+                if (book.getQuantity() < newQuantity) {
+                    throw new InsufficientStockException(
+                            "Insufficient stock for book: " + book.getTitle() +
+                            ". Available: " + book.getQuantity() + ", Total requested: " + newQuantity);
+                }
+                state.markDirty();
+                state.lines.put(bookId, existing.withQuantity(newQuantity, state.version));
+            }
+            state.removedBookIds.remove(bookId);
+            return state.snapshot();
+        });
+        return toResponse(snapshot);
+    }
+
+    @Override
+    public CartResponse updateItemQuantity(Long userId, Long bookId, int quantity) {
+        if (quantity <= 0) {
+            // Remove item if quantity is 0 or negative
+            return removeItem(userId, bookId);
+        }
+
+        BookResponse book = bookService.getBookById(bookId);
+
+        Snapshot snapshot = withCart(userId, state -> {
+            Line existing = state.lines.get(bookId);
+            if (existing == null) {
+                throw new ResourceNotFoundException("Item not found in cart");
+            }
+            if (book.getQuantity() < quantity) {
+                throw new InsufficientStockException(
+                        "Insufficient stock for book: " + book.getTitle() +
+                        ". Available: " + book.getQuantity());
+            }
+            state.markDirty();
+            state.lines.put(bookId, existing.withQuantity(quantity, state.version));
+            return state.snapshot();
+        });
+        return toResponse(snapshot);
+    }
+
+    @Override
+    public CartResponse removeItem(Long userId, Long bookId) {
+        Snapshot snapshot = withCart(userId, state -> {
+            if (state.lines.remove(bookId) == null) {
+                throw new ResourceNotFoundException("Item not found in cart");
+            }
+            state.removedBookIds.add(bookId);
+            state.markDirty();
+            return state.snapshot();
+        });
+        return toResponse(snapshot);
+    }
+
+    @Override
+    public void clearCart(Long userId) {
+        withCart(userId, state -> {
+            if (state.cartId == null && state.lines.isEmpty()) {
+                throw new ResourceNotFoundException("Cart not found for user");
+            }
+            state.removedBookIds.addAll(state.lines.keySet());
+            state.lines.clear();
+            state.markDirty();
+            return null;
+        });
+    }
+
+    @Override
+    public void flush(Long userId) {
+        CartState state = carts.get(userId);
+        if (state == null) {
+            return;
+        }
+
+        // Held until the caller's transaction ends so the background flusher cannot write an older
+        // snapshot of this cart over what the caller is about to read and change
+        state.flushLock.lock();
+        TransactionHooks.afterCompletion(state.flushLock::unlock);
+
+        Snapshot snapshot;
+        state.lock.lock();
+        try {
+            // The version the caller is about to read from the database; see invalidate()
+            state.readVersion = state.version;
+            snapshot = state.dirtySnapshot();
+        } finally {
+            state.lock.unlock();
+        }
+        if (snapshot != null) {
+            transactionTemplate.executeWithoutResult(status -> write(List.of(snapshot)));
+        }
+    }
+
+    // Checkout replaced the cart rows it read after flush(). The user can keep changing the cart while
+    // checkout runs; those changes were not bought and must not be thrown away with the rest, so lines
+    // changed after the version checkout read stay in memory for the flusher to write.
+    @Override
+    public void invalidate(Long userId) {
+        TransactionHooks.afterCommit(() -> {
+            CartState state = carts.get(userId);
+            if (state == null) {
+                return;
+            }
+            state.lock.lock();
+            try {
+                // The flush lock is held until the transaction completes, so holding it here means this
+                // transaction flushed this cart and readVersion is what it read
+                if (state.flushLock.isHeldByCurrentThread() && state.version != state.readVersion) {
+                    long read = state.readVersion;
+                    state.lines.values().removeIf(line -> line.version() <= read);
+                    // Their rows went with the rest of the cart's items
+                    state.lines.replaceAll((bookId, line) -> line.withoutItemId());
+                    state.removedBookIds.clear();
+                    if (!state.lines.isEmpty()) {
+                        state.markDirty();
+                        return;
+                    }
+                }
+                state.evicted = true;
+                carts.remove(userId, state);
+            } finally {
+                state.lock.unlock();
+            }
+        });
+    }
+
+    // Runs the action under the user's cart lock, loading the cart from the database on first use
+    private <T> T withCart(Long userId, Function<CartState, T> action) {
+        while (true) {
+            CartState state = carts.get(userId);
+            if (state == null) {
+                CartState loaded = load(userId);
+                state = carts.putIfAbsent(userId, loaded);
+                if (state == null) {
+                    state = loaded;
+                }
+            }
+
+            state.lock.lock();
+            try {
+                if (state.evicted) {
+                    // Lost a race with eviction - pick up the replacement entry
+                    continue;
+                }
+                state.lastAccessNanos = System.nanoTime();
+                return action.apply(state);
+            } finally {
+                state.lock.unlock();
+            }
+        }
+    }
+
+    private CartState load(Long userId) {
+        CartState state = new CartState(userId);
+        cartRepository.findByUserIdWithItemsAndBooks(userId).ifPresent(cart -> {
+            state.cartId = cart.getId();
+            state.updatedAt = cart.getUpdatedAt();
+            for (CartItem item : cart.getItems()) {
+                state.lines.put(item.getBook().getId(),
+                        new Line(item.getId(), item.getQuantity(), item.getAddedAt(), 0));
+            }
+        });
+        return state;
+    }
+
+    // Book details come from the book cache, so building a response normally costs no query
+    private CartResponse toResponse(Snapshot snapshot) {
+        List<CartItemResponse> items = new ArrayList<>(snapshot.lines().size());
+        for (Map.Entry<Long, Line> entry : snapshot.lines().entrySet()) {
+            BookResponse book;
+            try {
+                book = bookService.getBookById(entry.getKey());
+            } catch (ResourceNotFoundException e) {
+                // The book has been deleted since it was added - leave it out
+                continue;
+            }
+            Line line = entry.getValue();
+            items.add(CartItemResponse.of(line.itemId(), book, line.quantity(), line.addedAt()));
+        }
+        return CartResponse.of(snapshot.cartId(), snapshot.userId(), items, snapshot.updatedAt());
+    }
+
+    void flushDirty() {
+        try {
+            evictIdle();
+
+            List<CartState> dirty = new ArrayList<>();
+            for (CartState state : carts.values()) {
+                if (state.isDirty()) {
+                    dirty.add(state);
+                }
+            }
+            for (int from = 0; from < dirty.size(); from += batchSize) {
+                List<CartState> batch = dirty.subList(from, Math.min(from + batchSize, dirty.size()));
+                flushTimer.record(() -> flushBatch(batch));
+            }
+        } catch (RuntimeException e) {
+            // Never let an exception cancel the scheduled task
+            log.error("Cart flush cycle failed", e);
+        }
+    }
+
+    private void flushBatch(List<CartState> states) {
+        // Skip carts a checkout is flushing right now; they are picked up next cycle
+        List<CartState> locked = new ArrayList<>(states.size());
+        for (CartState state : states) {
+            if (state.flushLock.tryLock()) {
+                locked.add(state);
+            }
+        }
+
+        try {
+            List<Snapshot> batch = new ArrayList<>(locked.size());
+            for (CartState state : locked) {
+                Snapshot snapshot = state.dirtySnapshot();
+                if (snapshot != null) {
+                    batch.add(snapshot);
+                }
+            }
+            if (batch.isEmpty()) {
+                return;
+            }
+
+            try {
+                transactionTemplate.executeWithoutResult(status -> write(batch));
+            } catch (RuntimeException e) {
+                flushFailures.increment();
+                if (batch.size() == 1) {
+                    log.warn("Cart flush for user {} failed, will retry: {}", batch.get(0).userId(), e.getMessage());
+                    return;
+                }
+                // Retry one cart at a time so a single bad cart cannot hold back the rest
+                log.warn("Cart flush of {} carts failed, retrying individually: {}", batch.size(), e.getMessage());
+                for (Snapshot snapshot : batch) {
+                    try {
+                        transactionTemplate.executeWithoutResult(status -> write(List.of(snapshot)));
+                    } catch (RuntimeException single) {
+                        flushFailures.increment();
+                        log.warn("Cart flush for user {} failed, will retry: {}", snapshot.userId(), single.getMessage());
+                    }
+                }
+            }
+        } finally {
+            locked.forEach(state -> state.flushLock.unlock());
+        }
+    }
+
+    // Must run inside a transaction; marks the snapshots as flushed once it commits
+    private void write(List<Snapshot> batch) {
+        Map<Long, Long> cartIds = new HashMap<>();
+        List<Object[]> touches = new ArrayList<>();
+        List<Object[]> deletes = new ArrayList<>();
+        List<Long> lineCartIds = new ArrayList<>();
+        List<Long> lineBookIds = new ArrayList<>();
+        List<Integer> lineQuantities = new ArrayList<>();
+        List<Timestamp> lineAddedAt = new ArrayList<>();
+
+        for (Snapshot snapshot : batch) {
+            Long cartId = snapshot.cartId();
+            if (cartId == null) {
+                cartId = jdbcTemplate.queryForObject(CREATE_CART_SQL, Long.class,
+                        snapshot.userId(), snapshot.updatedAt(), snapshot.updatedAt());
+            } else {
+                touches.add(new Object[]{snapshot.updatedAt(), cartId});
+            }
+            cartIds.put(snapshot.userId(), cartId);
+
+            for (Long bookId : snapshot.removedBookIds()) {
+                deletes.add(new Object[]{cartId, bookId});
+            }
+            for (Map.Entry<Long, Line> entry : snapshot.lines().entrySet()) {
+                Line line = entry.getValue();
+                lineCartIds.add(cartId);
+                lineBookIds.add(entry.getKey());
+                lineQuantities.add(line.quantity());
+                lineAddedAt.add(Timestamp.valueOf(line.addedAt()));
+            }
+        }
+
+        jdbcTemplate.batchUpdate(TOUCH_CART_SQL, touches);
+        jdbcTemplate.batchUpdate(DELETE_ITEM_SQL, deletes);
+
+        // Item ids by cart id, then book id
+        Map<Long, Map<Long, Long>> itemIds = new HashMap<>();
+        if (!lineBookIds.isEmpty()) {
+            jdbcTemplate.query(connection -> {
+                PreparedStatement statement = connection.prepareStatement(UPSERT_ITEMS_SQL);
+                statement.setArray(1, connection.createArrayOf("int8", lineCartIds.toArray()));
+                statement.setArray(2, connection.createArrayOf("int8", lineBookIds.toArray()));
+                statement.setArray(3, connection.createArrayOf("int4", lineQuantities.toArray()));
+                statement.setArray(4, connection.createArrayOf("timestamp", lineAddedAt.toArray()));
+                return statement;
+            }, (ResultSet rs) -> {
+                itemIds.computeIfAbsent(rs.getLong(1), cartId -> new HashMap<>()).put(rs.getLong(2), rs.getLong(3));
+            });
+        }
+
+        TransactionHooks.afterCommit(() -> {
+            for (Snapshot snapshot : batch) {
+                Long cartId = cartIds.get(snapshot.userId());
+                snapshot.owner().markFlushed(snapshot, cartId, itemIds.getOrDefault(cartId, Map.of()));
+            }
+        });
+    }
+
+    private void evictIdle() {
+        long now = System.nanoTime();
+        for (CartState state : carts.values()) {
+            if (now - state.lastAccessNanos < idleNanos || state.isDirty()) {
+                continue;
+            }
+            if (!state.lock.tryLock()) {
+                continue;
+            }
+            try {
+                if (!state.isDirty() && now - state.lastAccessNanos >= idleNanos) {
+                    state.evicted = true;
+                    carts.remove(state.userId, state);
+                }
+            } finally {
+                state.lock.unlock();
+            }
+        }
+    }
+
+    private double dirtyCount() {
+        return carts.values().stream().filter(CartState::isDirty).count();
+    }
+
+    private double flushLagSeconds() {
+        long now = System.nanoTime();
+        long oldest = 0;
+        for (CartState state : carts.values()) {
+            long since = state.dirtySinceNanos;
+            if (since != 0) {
+                oldest = Math.max(oldest, now - since);
+            }
+        }
+        return oldest / 1_000_000_000.0;
+    }
+
+    private static final class CartState {
+        // ReentrantLock rather than synchronized so virtual threads don't pin their carrier
+        private final ReentrantLock lock = new ReentrantLock();
+        // Serializes database writes of this cart between the flusher and checkout
+        private final ReentrantLock flushLock = new ReentrantLock();
+
+        private final Long userId;
+        private final Map<Long, Line> lines = new LinkedHashMap<>();
+        private final Set<Long> removedBookIds = new HashSet<>();
+        private Long cartId;
+        private LocalDateTime updatedAt;
+        private long version;
+        private long flushedVersion;
+        private long readVersion;
+        private boolean evicted;
+
+        // Read without the lock by the flusher and the gauges; 0 means clean
+        private volatile long dirtySinceNanos;
+        private volatile long lastAccessNanos = System.nanoTime();
+
+        CartState(Long userId) {
+            this.userId = userId;
+        }
+
+        boolean isDirty() {
+            return dirtySinceNanos != 0;
+        }
+
+        void markDirty() {
+            version++;
+            updatedAt = LocalDateTime.now();
+            if (dirtySinceNanos == 0) {
+                dirtySinceNanos = System.nanoTime();
+            }
+        }
+
+        Snapshot snapshot() {
+            return new Snapshot(this, userId, cartId, new LinkedHashMap<>(lines), Set.copyOf(removedBookIds), updatedAt, version);
+        }
+
+        Snapshot dirtySnapshot() {
+            lock.lock();
+            try {
+                return version != flushedVersion && !evicted ? snapshot() : null;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        void markFlushed(Snapshot snapshot, Long persistedCartId, Map<Long, Long> itemIds) {
+            lock.lock();
+            try {
+                cartId = persistedCartId;
+                // A line removed and added again since the snapshot gets a new row, and id, next flush
+                itemIds.forEach((bookId, itemId) ->
+                        lines.computeIfPresent(bookId, (key, line) -> line.withItemId(itemId)));
+                flushedVersion = Math.max(flushedVersion, snapshot.version());
+                // Changes made while the snapshot was being written stay dirty for the next cycle
+                if (flushedVersion == version) {
+                    removedBookIds.clear();
+                    dirtySinceNanos = 0;
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    // version is the cart version that last changed the line
+    private record Line(Long itemId, int quantity, LocalDateTime addedAt, long version) {
+
+        Line withQuantity(int newQuantity, long newVersion) {
+            return new Line(itemId, newQuantity, addedAt, newVersion);
+        }
+
+        Line withItemId(Long newItemId) {
+            return new Line(newItemId, quantity, addedAt, version);
+        }
+
+        Line withoutItemId() {
+            return withItemId(null);
+        }
+    }
+
+    private record Snapshot(CartState owner, Long userId, Long cartId, Map<Long, Line> lines, Set<Long> removedBookIds,
+                            LocalDateTime updatedAt, long version) {
+    }
+}
@@ -0,0 +1,21 @@
+package com.bookstore;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.condition.EnabledIfEnvironmentVariable;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+// Measurements that take too long for every build. They run only when asked for, e.g.
+//   BOOKSTORE_BENCHMARKS=true mvn test -Dgroups=benchmark
+// and log their numbers besides asserting on them.
+@Target({ElementType.TYPE, ElementType.METHOD})
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+@Tag("benchmark")
+@EnabledIfEnvironmentVariable(named = "BOOKSTORE_BENCHMARKS", matches = "true")
+public @interface BenchmarkTest {
+}
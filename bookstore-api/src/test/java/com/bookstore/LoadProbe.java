@@ -0,0 +1,128 @@
+package com.bookstore;
+
+import java.io.IOException;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.IntFunction;
+import java.util.function.Supplier;
+
+// Drives an endpoint from a fixed number of concurrent callers for a while and summarizes what came back
+public final class LoadProbe {
+
+    private LoadProbe() {
+    }
+
+    // One unit of work for a caller, e.g. a request or a short sequence of them; returns the status to count
+    @FunctionalInterface
+    public interface Call {
+        int send() throws IOException, InterruptedException;
+    }
+
+    public static Result run(HttpClient client, Supplier<HttpRequest> request, int callers, Duration duration)
+            throws Exception {
+        Call call = () -> client.send(request.get(), HttpResponse.BodyHandlers.discarding()).statusCode();
+        return run(caller -> call, callers, duration);
+    }
+
+    // Each caller gets its own Call, so callers can act as different users
+    public static Result run(IntFunction<Call> calls, int callers, Duration duration) throws Exception {
+        long deadline = System.nanoTime() + duration.toNanos();
+        List<Future<Calls>> futures = new ArrayList<>(callers);
+        long started = System.nanoTime();
+        try (ExecutorService threads = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < callers; i++) {
+                Call call = calls.apply(i);
+                futures.add(threads.submit(() -> {
+                    Calls made = new Calls();
+                    while (System.nanoTime() < deadline) {
+                        long sent = System.nanoTime();
+                        int status;
+                        try {
+                            status = call.send();
+                        } catch (IOException e) {
+                            status = 0;
+                        }
+                        made.add(status, System.nanoTime() - sent);
+                    }
+                    return made;
+                }));
+            }
+        }
+        double seconds = (System.nanoTime() - started) / 1e9;
+
+        Calls all = new Calls();
+        for (Future<Calls> future : futures) {
+            all.addAll(future.get());
+        }
+        return all.summarize(seconds);
+    }
+
+    // Status 0 stands for a request that got no response at all
+    public record Result(int requests, Map<Integer, Integer> statuses, long p50Millis, long p99Millis,
+                         double perSecond) {
+
+        public int count(int status) {
+            return statuses.getOrDefault(status, 0);
+        }
+
+        public int errors() {
+            return statuses.entrySet().stream()
+                    .filter(entry -> entry.getKey() == 0 || entry.getKey() >= 500)
+                    .mapToInt(Map.Entry::getValue)
+                    .sum();
+        }
+
+        public double errorRate() {
+            return requests == 0 ? 0 : errors() / (double) requests;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%d requests, %.0f/s, p50 %d ms, p99 %d ms, statuses %s",
+                    requests, perSecond, p50Millis, p99Millis, statuses);
+        }
+    }
+
+    private static final class Calls {
+        private final Map<Integer, Integer> statuses = new TreeMap<>();
+        private long[] nanos = new long[1024];
+        private int size;
+
+        void add(int status, long elapsed) {
+            statuses.merge(status, 1, Integer::sum);
+            record(elapsed);
+        }
+
+        void addAll(Calls other) {
+            other.statuses.forEach((status, count) -> statuses.merge(status, count, Integer::sum));
+            for (int i = 0; i < other.size; i++) {
+                record(other.nanos[i]);
+            }
+        }
+
+        private void record(long elapsed) {
+            if (size == nanos.length) {
+                nanos = Arrays.copyOf(nanos, size * 2);
+            }
+            nanos[size++] = elapsed;
+        }
+
+        Result summarize(double seconds) {
+            long[] sorted = Arrays.copyOf(nanos, size);
+            Arrays.sort(sorted);
+            long p50 = size == 0 ? 0 : sorted[size / 2] / 1_000_000;
+            long p99 = size == 0 ? 0 : sorted[Math.min(size - 1, size * 99 / 100)] / 1_000_000;
+            return new Result(size, Map.copyOf(statuses), p50, p99, size / seconds);
+        }
+    }
+}
@@ -0,0 +1,34 @@
+package com.bookstore;
+
+import org.junit.jupiter.api.condition.EnabledIfEnvironmentVariable;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+// Integration tests that need a real PostgreSQL (native upserts, sequences, ON CONFLICT).
+// They run only when BOOKSTORE_TEST_DB_URL points at a scratch database, e.g.
+//   BOOKSTORE_TEST_DB_URL=jdbc:postgresql://localhost:5432/bookstore_test mvn test
+// The schema is created and dropped by Hibernate, so never point this at real data.
+@Target(ElementType.TYPE)
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+@EnabledIfEnvironmentVariable(named = "BOOKSTORE_TEST_DB_URL", matches = ".+")
+@ActiveProfiles("prod")
+@Import(TestFixtures.class)
+@TestPropertySource(properties = {
+        "spring.datasource.url=${BOOKSTORE_TEST_DB_URL}",
+        "spring.datasource.username=${BOOKSTORE_TEST_DB_USER:postgres}",
+        "spring.datasource.password=${BOOKSTORE_TEST_DB_PASSWORD:postgres}",
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "jwt.secret=dGVzdC1zZWNyZXQta2V5LWZvci1pbnRlZ3JhdGlvbi10ZXN0cy1vbmx5LTI1Ni1iaXRz",
+        "jwt.expiration=3600000",
+        "jwt.refresh-expiration=86400000"
+})
+public @interface PostgresTest {
+}
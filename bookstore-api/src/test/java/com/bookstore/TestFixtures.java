@@ -0,0 +1,90 @@
+package com.bookstore;
+
+import com.bookstore.entity.Book;
+import com.bookstore.entity.Category;
+import com.bookstore.entity.Order;
+import com.bookstore.entity.OrderItem;
+import com.bookstore.entity.Role;
+import com.bookstore.entity.User;
+import com.bookstore.repository.BookRepository;
+import com.bookstore.repository.CategoryRepository;
+import com.bookstore.repository.OrderRepository;
+import com.bookstore.repository.UserRepository;
+import org.springframework.boot.test.context.TestComponent;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Creates rows with unique emails/ISBNs so tests sharing a context never collide
+@TestComponent
+public class TestFixtures {
+
+    private static final AtomicLong SEQUENCE = new AtomicLong(System.nanoTime() % 1_000_000_000L);
+
+    private final UserRepository userRepository;
+    private final BookRepository bookRepository;
+    private final OrderRepository orderRepository;
+    private final CategoryRepository categoryRepository;
+
+    public TestFixtures(UserRepository userRepository, BookRepository bookRepository,
+                        OrderRepository orderRepository, CategoryRepository categoryRepository) {
+        this.userRepository = userRepository;
+        this.bookRepository = bookRepository;
+        this.orderRepository = orderRepository;
+        this.categoryRepository = categoryRepository;
+    }
+
+    public User customer() {
+        long n = SEQUENCE.incrementAndGet();
+        return userRepository.save(User.builder()
+                .email("customer" + n + "@example.com")
+                .passwordHash("not-a-real-hash")
+                .firstName("Test")
+                .lastName("Customer " + n)
+                .role(Role.CUSTOMER)
+                .isActive(true)
+                .build());
+    }
+
+    public Book book(int quantity) {
+        return book(quantity, false);
+    }
+
+    public Book book(int quantity, boolean rare) {
+        long n = SEQUENCE.incrementAndGet();
+        return bookRepository.save(Book.builder()
+                .isbn(String.format("978%010d", n % 10_000_000_000L))
+                .title("Test Book " + n)
+                .author("Test Author")
+                .price(new BigDecimal("12.50"))
+                .quantity(quantity)
+                .isRare(rare)
+                .build());
+    }
+
+    public Category category() {
+        return categoryRepository.save(Category.builder()
+                .name("Test Category " + SEQUENCE.incrementAndGet())
+                .build());
+    }
+
+    // A pending order with one copy of each book, saved as is - no stock is taken
+    public Order order(User user, List<Book> books) {
+        long n = SEQUENCE.incrementAndGet();
+        Order order = Order.builder()
+                .orderNumber("TEST-" + n)
+                .user(user)
+                .shippingAddress("1 Test Street")
+                .build();
+        for (Book book : books) {
+            order.addItem(OrderItem.builder()
+                    .book(book)
+                    .quantity(1)
+                    .priceAtPurchase(book.getPrice())
+                    .build());
+        }
+        order.calculateTotals();
+        return orderRepository.save(order);
+    }
+}
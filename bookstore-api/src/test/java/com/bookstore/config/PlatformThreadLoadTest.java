@@ -0,0 +1,14 @@
+package com.bookstore.config;
+
+import com.bookstore.PostgresTest;
+import org.springframework.boot.test.context.SpringBootTest;
+
+// The same load on Tomcat's platform thread pool, for comparison
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "spring.threads.virtual.enabled=false",
+        "spring.datasource.hikari.maximum-pool-size=4",
+        "spring.datasource.hikari.connection-timeout=2000"
+})
+@PostgresTest
+class PlatformThreadLoadTest extends VirtualThreadLoadTest {
+}
@@ -0,0 +1,59 @@
+package com.bookstore.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.env.MockEnvironment;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class VirtualThreadConfigTest {
+
+    @Test
+    void sizesAnUnconfiguredPool() {
+        HikariDataSource dataSource = postProcess(new MockEnvironment());
+
+        assertThat(dataSource.getMaximumPoolSize()).isEqualTo(12);
+        assertThat(dataSource.getMinimumIdle()).isEqualTo(12);
+        assertThat(dataSource.getConnectionTimeout()).isEqualTo(2000);
+    }
+
+    @Test
+    void leavesConfiguredHikariSettingsAlone() {
+        HikariDataSource dataSource = new HikariDataSource();
+        dataSource.setMaximumPoolSize(40);
+        dataSource.setMinimumIdle(5);
+        dataSource.setConnectionTimeout(30_000);
+
+        postProcess(dataSource, new MockEnvironment()
+                .withProperty("spring.datasource.hikari.maximum-pool-size", "40")
+                .withProperty("spring.datasource.hikari.minimumIdle", "5")
+                .withProperty("spring.datasource.hikari.connection-timeout", "30000"));
+
+        assertThat(dataSource.getMaximumPoolSize()).isEqualTo(40);
+        assertThat(dataSource.getMinimumIdle()).isEqualTo(5);
+        assertThat(dataSource.getConnectionTimeout()).isEqualTo(30_000);
+    }
+
+    @Test
+    void keepsIdleConnectionsAtAConfiguredPoolSize() {
+        HikariDataSource dataSource = new HikariDataSource();
+        dataSource.setMaximumPoolSize(30);
+
+        postProcess(dataSource, new MockEnvironment()
+                .withProperty("spring.datasource.hikari.maximum-pool-size", "30"));
+
+        assertThat(dataSource.getMaximumPoolSize()).isEqualTo(30);
+        assertThat(dataSource.getMinimumIdle()).isEqualTo(30);
+        assertThat(dataSource.getConnectionTimeout()).isEqualTo(2000);
+    }
+
+    private static HikariDataSource postProcess(MockEnvironment environment) {
+        return postProcess(new HikariDataSource(), environment);
+    }
+
+    private static HikariDataSource postProcess(HikariDataSource dataSource, MockEnvironment environment) {
+        VirtualThreadConfig.virtualThreadPoolSizer(environment, 12, 2000)
+                .postProcessBeforeInitialization(dataSource, "dataSource");
+        return dataSource;
+    }
+}
@@ -0,0 +1,121 @@
+package com.bookstore.config;
+
+import com.bookstore.LoadProbe;
+import com.bookstore.PostgresTest;
+import com.bookstore.TestFixtures;
+import com.bookstore.entity.Book;
+import com.bookstore.entity.User;
+import com.bookstore.security.JwtService;
+import com.zaxxer.hikari.HikariDataSource;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Catalog reads and checkouts from far more concurrent callers than connections, through a fixed pool
+// of four that fails a connection wait after 2s. The subclass runs the same load on platform threads;
+// compare the logged numbers of the two. A few fail-fast 500s are the design, not a failure, so the
+// assertions bound the error rate, latency and throughput instead of expecting every call to succeed.
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "spring.threads.virtual.enabled=true",
+        "spring.datasource.hikari.maximum-pool-size=4",
+        "spring.datasource.hikari.connection-timeout=2000"
+})
+@PostgresTest
+class VirtualThreadLoadTest {
+
+    private static final Logger log = LoggerFactory.getLogger(VirtualThreadLoadTest.class);
+
+    private static final int CATALOG_CALLERS = 200;
+    private static final int CHECKOUT_CALLERS = 50;
+    private static final Duration DURATION = Duration.ofSeconds(15);
+
+    private static final double MAX_ERROR_RATE = 0.01;
+    private static final long MAX_P99_MILLIS = 2000;
+    private static final double MIN_CATALOG_PER_SECOND = 50;
+    private static final double MIN_CHECKOUTS_PER_SECOND = 5;
+
+    @LocalServerPort
+    private int port;
+    @Value("${spring.threads.virtual.enabled}")
+    private boolean virtualThreads;
+    @Autowired
+    private HikariDataSource dataSource;
+    @Autowired
+    private TestFixtures fixtures;
+    @Autowired
+    private JwtService jwtService;
+
+    @Test
+    void servesCatalogAndCheckoutThroughTheFixedPool() throws Exception {
+        for (int i = 0; i < 50; i++) {
+            fixtures.book(10);
+        }
+        Book stocked = fixtures.book(1_000_000);
+        List<String> tokens = IntStream.range(0, CHECKOUT_CALLERS)
+                .mapToObj(i -> jwtService.generateToken(fixtures.customer()))
+                .toList();
+        assertThat(dataSource.getMaximumPoolSize()).isEqualTo(4);
+
+        HttpClient client = HttpClient.newBuilder().executor(Executors.newVirtualThreadPerTaskExecutor()).build();
+        URI catalog = URI.create("http://localhost:" + port + "/api/books?page=0&size=20");
+        URI cartItems = URI.create("http://localhost:" + port + "/api/cart/items");
+        URI checkout = URI.create("http://localhost:" + port + "/api/orders/checkout");
+        String item = "{\"bookId\":" + stocked.getId() + ",\"quantity\":1}";
+        String address = "{\"shippingAddress\":\"1 Test Street\"}";
+
+        CompletableFuture<LoadProbe.Result> checkouts = CompletableFuture.supplyAsync(() -> {
+            try {
+                return LoadProbe.run(caller -> () -> {
+                    String token = tokens.get(caller);
+                    int added = post(client, cartItems, token, item);
+                    return added == 200 ? post(client, checkout, token, address) : added;
+                }, CHECKOUT_CALLERS, DURATION);
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+        });
+        LoadProbe.Result reads = LoadProbe.run(client, () -> HttpRequest.newBuilder(catalog).GET().build(),
+                CATALOG_CALLERS, DURATION);
+        LoadProbe.Result orders = checkouts.get();
+
+        String mode = virtualThreads ? "virtual" : "platform";
+        log.info("{} threads, {} connections - catalog: {}", mode, dataSource.getMaximumPoolSize(), reads);
+        log.info("{} threads, {} connections - checkout: {}", mode, dataSource.getMaximumPoolSize(), orders);
+
+        assertThat(reads.errorRate()).isLessThanOrEqualTo(MAX_ERROR_RATE);
+        assertThat(reads.count(200) + reads.errors()).isEqualTo(reads.requests());
+        assertThat(reads.p99Millis()).isLessThan(MAX_P99_MILLIS);
+        assertThat(reads.perSecond()).isGreaterThan(MIN_CATALOG_PER_SECOND);
+
+        assertThat(orders.errorRate()).isLessThanOrEqualTo(MAX_ERROR_RATE);
+        assertThat(orders.count(201) + orders.errors()).isEqualTo(orders.requests());
+        assertThat(orders.p99Millis()).isLessThan(2 * MAX_P99_MILLIS);
+        assertThat(orders.perSecond()).isGreaterThan(MIN_CHECKOUTS_PER_SECOND);
+    }
+
+    private static int post(HttpClient client, URI uri, String token, String body)
+            throws IOException, InterruptedException {
+        return client.send(HttpRequest.newBuilder(uri)
+                .header("Authorization", "Bearer " + token)
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(body))
+                .build(), HttpResponse.BodyHandlers.discarding()).statusCode();
+    }
+}
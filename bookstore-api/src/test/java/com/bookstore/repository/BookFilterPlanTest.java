@@ -0,0 +1,171 @@
+package com.bookstore.repository;
+
+import com.bookstore.PostgresTest;
+import com.bookstore.TestFixtures;
+import com.bookstore.entity.Book;
+import com.bookstore.entity.BookCondition;
+import com.bookstore.entity.Category;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// EXPLAINs the page and count queries of /filter for every combination of its filters. Without a
+// category filter the plan must not de-duplicate rows (no DISTINCT, Unique or hash aggregate) nor touch
+// book_categories; with one, book_categories must be joined as a semi-join - PostgreSQL's plan for the
+// correlated EXISTS - rather than run as a subplan per book. Filter values are inlined into the SQL so
+// it can be explained as captured; only the page limit is left to fill in.
+@SpringBootTest(properties = {
+        "spring.jpa.properties.hibernate.session_factory.statement_inspector=com.bookstore.repository.SqlCapture",
+        "spring.jpa.properties.hibernate.criteria.value_handling_mode=inline"
+})
+@PostgresTest
+class BookFilterPlanTest {
+
+    private static final int BOOKS = 2000;
+    private static final int IN_CATEGORY_EVERY = 10;
+    private static final int PAGE_SIZE = 20;
+
+    private static final int KEYWORD = 1;
+    private static final int CATEGORY = 1 << 1;
+    private static final int MIN_PRICE = 1 << 2;
+    private static final int MAX_PRICE = 1 << 3;
+    private static final int CONDITION = 1 << 4;
+    private static final int RARE = 1 << 5;
+    private static final int IN_STOCK = 1 << 6;
+    private static final int ALL_FILTERS = (1 << 7) - 1;
+
+    @Autowired
+    private BookRepository bookRepository;
+    @Autowired
+    private TestFixtures fixtures;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    void everyFilterCombinationAvoidsDistinctAndSemiJoinsCategories() throws Exception {
+        Category category = fixtures.category();
+        List<Object[]> links = new ArrayList<>();
+        for (int i = 0; i < BOOKS; i++) {
+            Long bookId = fixtures.book(5).getId();
+            if (i % IN_CATEGORY_EVERY == 0) {
+                links.add(new Object[]{bookId, category.getId()});
+            }
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO book_categories (book_id, category_id) VALUES (?, ?)", links);
+        jdbcTemplate.execute("ANALYZE books");
+        jdbcTemplate.execute("ANALYZE book_categories");
+
+        for (int filters = 0; filters <= ALL_FILTERS; filters++) {
+            SqlCapture.drain();
+            bookRepository.findAll(specification(filters, category.getId()),
+                    PageRequest.of(0, PAGE_SIZE, Sort.by("id")));
+            List<String> statements = SqlCapture.drain();
+            assertThat(statements).as("statements for filters %s", describe(filters)).isNotEmpty();
+
+            for (String sql : statements) {
+                List<JsonNode> nodes = planNodes(explain(sql));
+                String description = describe(filters) + ": " + sql;
+
+                assertThat(sql.toLowerCase(Locale.ROOT)).as(description).doesNotContain("distinct");
+                assertThat(nodes).as(description)
+                        .noneMatch(node -> node.path("Node Type").asText().equals("Unique")
+                                && !readsBookCategories(node))
+                        .noneMatch(node -> node.path("Node Type").asText().equals("Aggregate")
+                                && node.path("Strategy").asText().equals("Hashed")
+                                && !readsBookCategories(node))
+                        .noneMatch(node -> node.path("Parent Relationship").asText().equals("SubPlan"));
+
+                if ((filters & CATEGORY) == 0) {
+                    assertThat(nodes).as(description).noneMatch(BookFilterPlanTest::isBookCategoriesScan);
+                } else {
+                    assertThat(nodes).as(description).anyMatch(BookFilterPlanTest::isSemiJoinOnBookCategories);
+                }
+            }
+        }
+
+        // And the category filter still finds exactly the books in the category
+        assertThat(bookRepository.findAll(specification(CATEGORY, category.getId()), PageRequest.of(0, PAGE_SIZE))
+                .getTotalElements()).isEqualTo(BOOKS / IN_CATEGORY_EVERY);
+    }
+
+    private static Specification<Book> specification(int filters, Long categoryId) {
+        return Specification.allOf(
+                BookSpecifications.keywordMatches((filters & KEYWORD) != 0 ? "test" : null),
+                BookSpecifications.inCategory((filters & CATEGORY) != 0 ? categoryId : null),
+                BookSpecifications.priceAtLeast((filters & MIN_PRICE) != 0 ? new BigDecimal("1.00") : null),
+                BookSpecifications.priceAtMost((filters & MAX_PRICE) != 0 ? new BigDecimal("100.00") : null),
+                BookSpecifications.hasCondition((filters & CONDITION) != 0 ? BookCondition.NEW : null),
+                BookSpecifications.isRare((filters & RARE) != 0 ? Boolean.FALSE : null),
+                BookSpecifications.inStockOnly((filters & IN_STOCK) != 0 ? Boolean.TRUE : null));
+    }
+
+    private JsonNode explain(String sql) throws Exception {
+        // Everything but the page limit was inlined
+        String plan = jdbcTemplate.queryForObject(
+                "EXPLAIN (FORMAT JSON) " + sql.replace("?", String.valueOf(PAGE_SIZE)), String.class);
+        return objectMapper.readTree(plan).get(0).get("Plan");
+    }
+
+    private static List<JsonNode> planNodes(JsonNode root) {
+        List<JsonNode> nodes = new ArrayList<>();
+        collect(root, nodes);
+        return nodes;
+    }
+
+    private static void collect(JsonNode node, List<JsonNode> nodes) {
+        nodes.add(node);
+        for (JsonNode child : node.path("Plans")) {
+            collect(child, nodes);
+        }
+    }
+
+    private static boolean isBookCategoriesScan(JsonNode node) {
+        return node.path("Relation Name").asText().equals("book_categories");
+    }
+
+    private static boolean readsBookCategories(JsonNode node) {
+        return planNodes(node).stream().anyMatch(BookFilterPlanTest::isBookCategoriesScan);
+    }
+
+    // Either a join of type Semi, or PostgreSQL's alternative for it: an inner join against the
+    // de-duplicated book_categories rows of the category
+    private static boolean isSemiJoinOnBookCategories(JsonNode node) {
+        if (!node.has("Join Type") || !readsBookCategories(node)) {
+            return false;
+        }
+        if (node.path("Join Type").asText().equals("Semi")) {
+            return true;
+        }
+        return planNodes(node).stream()
+                .skip(1)
+                .anyMatch(inner -> (inner.path("Node Type").asText().equals("Unique")
+                        || inner.path("Node Type").asText().equals("Aggregate"))
+                        && readsBookCategories(inner));
+    }
+
+    private static String describe(int filters) {
+        List<String> names = new ArrayList<>();
+        String[] all = {"keyword", "category", "minPrice", "maxPrice", "condition", "isRare", "inStock"};
+        for (int i = 0; i < all.length; i++) {
+            if ((filters & (1 << i)) != 0) {
+                names.add(all[i]);
+            }
+        }
+        return names.isEmpty() ? "[no filters]" : names.toString();
+    }
+}
@@ -0,0 +1,24 @@
+package com.bookstore.repository;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// Records the SQL Hibernate prepares on the current thread, for tests that EXPLAIN it
+public class SqlCapture implements StatementInspector {
+
+    private static final ThreadLocal<List<String>> STATEMENTS = ThreadLocal.withInitial(ArrayList::new);
+
+    @Override
+    public String inspect(String sql) {
+        STATEMENTS.get().add(sql);
+        return sql;
+    }
+
+    static List<String> drain() {
+        List<String> statements = List.copyOf(STATEMENTS.get());
+        STATEMENTS.get().clear();
+        return statements;
+    }
+}
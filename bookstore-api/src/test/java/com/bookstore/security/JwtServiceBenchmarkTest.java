@@ -0,0 +1,97 @@
+package com.bookstore.security;
+
+import com.bookstore.BenchmarkTest;
+import com.bookstore.entity.Role;
+import com.bookstore.entity.User;
+import io.jsonwebtoken.JwtParser;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.io.Decoders;
+import io.jsonwebtoken.security.Keys;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// What JwtAuthenticationFilter pays per request to validate a token: a claims-cache hit (one SHA-256
+// of the token) against a miss (hash, signature check, JSON parse, cache insert) and the bare parse.
+@BenchmarkTest
+class JwtServiceBenchmarkTest {
+
+    private static final Logger log = LoggerFactory.getLogger(JwtServiceBenchmarkTest.class);
+
+    private static final String SECRET = "dGVzdC1zZWNyZXQta2V5LWZvci1pbnRlZ3JhdGlvbi10ZXN0cy1vbmx5LTI1Ni1iaXRz";
+    private static final int TOKENS = 50_000;
+    private static final int ROUNDS = 5;
+
+    @Test
+    void cachedClaimsAreCheaperThanAFullParse() {
+        JwtService jwtService = jwtService();
+        JwtParser parser = Jwts.parser().verifyWith(Keys.hmacShaKeyFor(Decoders.BASE64.decode(SECRET))).build();
+        List<String> tokens = IntStream.range(0, TOKENS)
+                .mapToObj(i -> jwtService.generateToken(user(i)))
+                .toList();
+
+        // Summed subject lengths keep the JIT from dropping the work
+        long consumed = 0;
+        double parse = 0;
+        double miss = 0;
+        double hit = 0;
+        // The first round only warms up
+        for (int round = 0; round <= ROUNDS; round++) {
+            long started = System.nanoTime();
+            for (String token : tokens) {
+                consumed += parser.parseSignedClaims(token).getPayload().getSubject().length();
+            }
+            double parseNanos = (System.nanoTime() - started) / (double) TOKENS;
+
+            // A fresh service per round, so every token is a miss once and then a hit
+            JwtService cached = jwtService();
+            started = System.nanoTime();
+            for (String token : tokens) {
+                consumed += cached.extractValidClaims(token).getSubject().length();
+            }
+            double missNanos = (System.nanoTime() - started) / (double) TOKENS;
+
+            started = System.nanoTime();
+            for (String token : tokens) {
+                consumed += cached.extractValidClaims(token).getSubject().length();
+            }
+            double hitNanos = (System.nanoTime() - started) / (double) TOKENS;
+
+            if (round > 0) {
+                parse += parseNanos / ROUNDS;
+                miss += missNanos / ROUNDS;
+                hit += hitNanos / ROUNDS;
+            }
+        }
+        log.info("Token validation: full parse {} ns/op, cache miss {} ns/op, cache hit {} ns/op",
+                Math.round(parse), Math.round(miss), Math.round(hit));
+
+        assertThat(consumed).isPositive();
+        assertThat(hit).isLessThan(parse / 2);
+    }
+
+    private static JwtService jwtService() {
+        JwtService jwtService = new JwtService();
+        ReflectionTestUtils.setField(jwtService, "secretKey", SECRET);
+        ReflectionTestUtils.setField(jwtService, "jwtExpiration", 3_600_000L);
+        ReflectionTestUtils.setField(jwtService, "refreshExpiration", 86_400_000L);
+        ReflectionTestUtils.setField(jwtService, "claimsCacheMaxSize", (long) TOKENS);
+        jwtService.init();
+        return jwtService;
+    }
+
+    private static User user(int n) {
+        return User.builder()
+                .id((long) n)
+                .email("customer" + n + "@example.com")
+                .role(Role.CUSTOMER)
+                .isActive(true)
+                .build();
+    }
+}
@@ -0,0 +1,79 @@
+package com.bookstore.service;
+
+import com.bookstore.entity.BookSales;
+import com.bookstore.repository.BookSalesRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class BestSellerTrackerTest {
+
+    private final BookSalesRepository repository = mock(BookSalesRepository.class);
+    private final List<BookSales> stored = new ArrayList<>();
+    private BestSellerTracker tracker;
+
+    @BeforeEach
+    void setUp() {
+        when(repository.findAll()).thenAnswer(invocation -> List.copyOf(stored));
+        tracker = new BestSellerTracker(repository);
+        ReflectionTestUtils.setField(tracker, "enabled", true);
+    }
+
+    @AfterEach
+    void clearSynchronization() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void ranksSalesAsTheyArrive() {
+        stored.add(new BookSales(1L, 5L));
+        stored.add(new BookSales(2L, 3L));
+        assertThat(tracker.topK(2)).containsExactly(Map.entry(1L, 5L), Map.entry(2L, 3L));
+
+        tracker.record(2L, 4);
+        tracker.record(3L, 1);
+        tracker.record(1L, -5);
+
+        assertThat(tracker.topK(5)).containsExactly(Map.entry(2L, 7L), Map.entry(3L, 1L));
+    }
+
+    @Test
+    void reloadsInsteadOfCountingASaleTwiceWhenALoadRanWhileItWasInFlight() {
+        stored.add(new BookSales(1L, 5L));
+        tracker.topK(1);
+
+        TransactionSynchronizationManager.initSynchronization();
+        tracker.record(1L, 2);
+        List<TransactionSynchronization> hooks = TransactionSynchronizationManager.getSynchronizations();
+        TransactionSynchronizationManager.clearSynchronization();
+
+        // The order commits, then a reset and a reload read the new total before the hook runs
+        stored.set(0, new BookSales(1L, 7L));
+        tracker.reset();
+        assertThat(tracker.topK(1)).containsExactly(Map.entry(1L, 7L));
+        hooks.forEach(TransactionSynchronization::afterCommit);
+
+        assertThat(tracker.topK(1)).containsExactly(Map.entry(1L, 7L));
+    }
+
+    @Test
+    void leavesSalesRecordedBeforeTheFirstLoadToTheLoad() {
+        tracker.record(1L, 2);
+        stored.add(new BookSales(1L, 2L));
+
+        assertThat(tracker.topK(1)).containsExactly(Map.entry(1L, 2L));
+    }
+}
@@ -0,0 +1,35 @@
+package com.bookstore.service;
+
+import com.bookstore.dto.response.BookResponse;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class BookCacheTest {
+
+    private final BookCache cache = new BookCache(new SimpleMeterRegistry(), 100, 300);
+
+    @Test
+    void cachesBooksLoadedByIsbn() {
+        cache.getByIsbn("9780000000001", () -> book(1L, 5));
+
+        assertThat(cache.getById(1L, () -> book(1L, 0)).getQuantity()).isEqualTo(5);
+    }
+
+    @Test
+    void doesNotCacheAnIsbnLoadThatAnEvictionOverlapped() {
+        cache.getByIsbn("9780000000001", () -> {
+            BookResponse stale = book(1L, 5);
+            // An update commits and evicts the book while this read is still in flight
+            cache.evict(1L);
+            return stale;
+        });
+
+        assertThat(cache.getById(1L, () -> book(1L, 4)).getQuantity()).isEqualTo(4);
+    }
+
+    private static BookResponse book(Long id, int quantity) {
+        return BookResponse.builder().id(id).isbn("9780000000001").quantity(quantity).build();
+    }
+}
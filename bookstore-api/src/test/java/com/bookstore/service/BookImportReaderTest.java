@@ -0,0 +1,75 @@
+package com.bookstore.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class BookImportReaderTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    void readsQuotedCsvFieldsWithCommasQuotesAndLineBreaks() throws IOException {
+        BookImportReader reader = BookImportReader.csv(new StringReader(
+                "isbn,title,author,price,quantity,categoryIds\r\n" +
+                "9780000000001,\"Dune, \"\"Deluxe\"\"\nEdition\",Frank Herbert,19.99,3,1;2\r\n"), objectMapper);
+
+        BookImportReader.Row row = reader.next();
+
+        assertThat(row.error()).isNull();
+        assertThat(row.number()).isEqualTo(2);
+        assertThat(row.request().getTitle()).isEqualTo("Dune, \"Deluxe\"\nEdition");
+        assertThat(row.request().getCategoryIds()).containsExactlyInAnyOrder(1L, 2L);
+        assertThat(reader.next()).isNull();
+    }
+
+    @Test
+    void stopsAtTheRowLimitWhenAQuoteIsNeverClosed() {
+        BookImportReader reader = BookImportReader.csv(
+                new UnboundedInput("isbn,title\n9780000000001,\"never closed "), objectMapper);
+
+        assertThatThrownBy(reader::next)
+                .isInstanceOf(IOException.class)
+                .hasMessageContaining("Row 2")
+                .hasMessageContaining("quote");
+    }
+
+    @Test
+    void stopsAtTheRowLimitForAnOverlongNdjsonLine() {
+        BookImportReader reader = BookImportReader.ndjson(new UnboundedInput("{\"title\":\""), objectMapper);
+
+        assertThatThrownBy(reader::next)
+                .isInstanceOf(IOException.class)
+                .hasMessageContaining("Line 1");
+    }
+
+    // A prefix followed by an endless run of 'x', standing in for an upload far larger than the limit
+    private static final class UnboundedInput extends Reader {
+
+        private final String prefix;
+        private int position;
+
+        UnboundedInput(String prefix) {
+            this.prefix = prefix;
+        }
+
+        @Override
+        public int read(char[] buffer, int offset, int length) {
+            for (int i = 0; i < length; i++) {
+                buffer[offset + i] = position < prefix.length() ? prefix.charAt(position) : 'x';
+                position++;
+            }
+            return length;
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}
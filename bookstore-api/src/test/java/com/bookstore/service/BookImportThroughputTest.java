@@ -0,0 +1,81 @@
+package com.bookstore.service;
+
+import com.bookstore.PostgresTest;
+import com.bookstore.TestFixtures;
+import com.bookstore.dto.response.BookImportResponse;
+import com.bookstore.entity.Category;
+import com.bookstore.repository.BookRepository;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.io.SequenceInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Enumeration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Streams 100k generated CSV rows through the import - generated as they are read, so the body is
+// never held in memory - with every 100th row invalid. Checks the counts and a books/s floor.
+@SpringBootTest
+@PostgresTest
+class BookImportThroughputTest {
+
+    private static final Logger log = LoggerFactory.getLogger(BookImportThroughputTest.class);
+
+    private static final int ROWS = 100_000;
+    private static final int INVALID_EVERY = 100;
+    private static final double MIN_BOOKS_PER_SECOND = 2000;
+
+    @Autowired
+    private BookImportService bookImportService;
+    @Autowired
+    private BookRepository bookRepository;
+    @Autowired
+    private TestFixtures fixtures;
+
+    @Test
+    void importsOneHundredThousandStreamedRows() {
+        Category category = fixtures.category();
+        long booksBefore = bookRepository.count();
+
+        BookImportResponse response = bookImportService.importBooks(
+                csv(category.getId()), StandardCharsets.UTF_8, DataFormat.CSV, null);
+        log.info("Imported {} of {} rows in {} ms ({} books/s)", response.getImported(), response.getRowsRead(),
+                response.getDurationMs(), Math.round(response.getBooksPerSecond()));
+
+        int invalid = ROWS / INVALID_EVERY;
+        assertThat(response.getRowsRead()).isEqualTo(ROWS);
+        assertThat(response.getImported()).isEqualTo(ROWS - invalid);
+        assertThat(response.getFailed()).isEqualTo(invalid);
+        assertThat(response.getErrors()).allSatisfy(error ->
+                assertThat(error.getMessage()).contains("Quantity cannot be negative"));
+        assertThat(bookRepository.count() - booksBefore).isEqualTo(ROWS - invalid);
+        assertThat(response.getBooksPerSecond()).isGreaterThan(MIN_BOOKS_PER_SECOND);
+    }
+
+    private static InputStream csv(Long categoryId) {
+        return new SequenceInputStream(new Enumeration<>() {
+            private int row = -1;
+
+            @Override
+            public boolean hasMoreElements() {
+                return row < ROWS;
+            }
+
+            @Override
+            public InputStream nextElement() {
+                String line = row < 0
+                        ? "isbn,title,author,price,quantity,categoryIds\n"
+                        : String.format("979%010d,Imported Book %d,Import Author,9.99,%d,%d\n",
+                                row, row, row % INVALID_EVERY == 0 ? -1 : 3, categoryId);
+                row++;
+                return new ByteArrayInputStream(line.getBytes(StandardCharsets.UTF_8));
+            }
+        });
+    }
+}
@@ -0,0 +1,93 @@
+package com.bookstore.service;
+
+import com.bookstore.PostgresTest;
+import com.bookstore.TestFixtures;
+import com.bookstore.dto.response.PageResponse;
+import com.bookstore.entity.Book;
+import com.bookstore.entity.Category;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.math.BigDecimal;
+import java.util.function.IntFunction;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Every paged book listing reads the page of ids, the count and one query for the books with their
+// categories - the statement count does not grow with the page size.
+@SpringBootTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@PostgresTest
+class BookListingStatementCountTest {
+
+    private static final int BOOKS = 120;
+    private static final int[] PAGE_SIZES = {10, 50, 100};
+
+    @Autowired
+    private BookService bookService;
+    @Autowired
+    private TestFixtures fixtures;
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Category category;
+
+    @BeforeEach
+    void createBooks() {
+        category = fixtures.category();
+        for (int i = 0; i < BOOKS; i++) {
+            Book book = fixtures.book(5);
+            bookService.addCategoryToBook(book.getId(), category.getId());
+        }
+    }
+
+    @Test
+    void allBooks() {
+        assertConstant(size -> bookService.getAllBooks(0, size, "createdAt", "desc"));
+    }
+
+    @Test
+    void keywordSearch() {
+        // Served from the search index (trigram keyword) and from the database (too short for one)
+        assertConstant(size -> bookService.searchBooks("test book", 0, size));
+        assertConstant(size -> bookService.searchBooks("te", 0, size));
+    }
+
+    @Test
+    void booksByCategory() {
+        assertConstant(size -> bookService.getBooksByCategory(category.getId(), 0, size));
+    }
+
+    @Test
+    void advancedSearch() {
+        assertConstant(size -> bookService.advancedSearch("test", category.getId(), BigDecimal.ONE,
+                new BigDecimal("100"), null, false, true, 0, size, "title", "asc"));
+    }
+
+    @Test
+    void inStockBooks() {
+        assertConstant(size -> bookService.getInStockBooks(0, size));
+    }
+
+    private void assertConstant(IntFunction<PageResponse<?>> listing) {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        long first = -1;
+        for (int size : PAGE_SIZES) {
+            statistics.clear();
+            PageResponse<?> page = listing.apply(size);
+            long statements = statistics.getPrepareStatementCount();
+
+            // Other tests in this database may have added books of their own, so pages are at least full
+            assertThat(page.getContent()).hasSize(size);
+            assertThat(statements).isLessThanOrEqualTo(3);
+            if (first < 0) {
+                first = statements;
+            }
+            assertThat(statements).as("statements for a page of %d", size).isEqualTo(first);
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package com.bookstore.service;
+
+import com.bookstore.entity.Book;
+import com.bookstore.repository.BookRepository;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class BookSearchIndexTest {
+
+    private final BookRepository bookRepository = mock(BookRepository.class);
+    private final BookSearchIndex index = new BookSearchIndex(bookRepository, true, 300);
+
+    @Test
+    void rebuildPicksUpBooksWrittenElsewhere() {
+        List<Object[]> rows = new ArrayList<>();
+        rows.add(row(1L, "Dune"));
+        when(bookRepository.findSearchableFields()).thenReturn(rows);
+        index.rebuild();
+        assertThat(index.search("foundation")).isEqualTo(Optional.of(List.of()));
+
+        // Another instance adds a book and renames one
+        rows.set(0, row(1L, "Dune Messiah"));
+        rows.add(row(2L, "Foundation"));
+        index.rebuild();
+
+        assertThat(index.search("foundation")).contains(List.of(2L));
+        assertThat(index.search("messiah")).contains(List.of(1L));
+    }
+
+    @Test
+    void keepsLocalChangesCommittedWhileRebuilding() {
+        when(bookRepository.findSearchableFields()).thenReturn(List.of());
+        index.rebuild();
+
+        when(bookRepository.findSearchableFields()).thenAnswer(invocation -> {
+            // Commits after the rows were read, so they are not in them
+            index.put(Book.builder().id(3L).title("Hyperion").author("Simmons").isbn("9780000000003").build());
+            return List.<Object[]>of();
+        });
+        index.rebuild();
+
+        assertThat(index.search("hyperion")).contains(List.of(3L));
+    }
+
+    @Test
+    void keepsServingTheOldIndexWhenARebuildFails() {
+        when(bookRepository.findSearchableFields()).thenReturn(List.<Object[]>of(row(1L, "Dune")));
+        index.rebuild();
+
+        when(bookRepository.findSearchableFields()).thenThrow(new IllegalStateException("database down"));
+        index.rebuild();
+
+        assertThat(index.search("dune")).contains(List.of(1L));
+    }
+
+    private static Object[] row(Long id, String title) {
+        return new Object[]{id, title, "Author", "978000000000" + id};
+    }
+}
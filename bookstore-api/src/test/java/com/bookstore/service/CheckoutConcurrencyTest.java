@@ -0,0 +1,89 @@
+package com.bookstore.service;
+
+import com.bookstore.PostgresTest;
+import com.bookstore.TestFixtures;
+import com.bookstore.dto.request.CartItemRequest;
+import com.bookstore.dto.request.CheckoutRequest;
+import com.bookstore.entity.Book;
+import com.bookstore.entity.User;
+import com.bookstore.exception.BookstoreExceptions.*;
+import com.bookstore.repository.BookRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Many customers check out the last copies of one book at the same moment: exactly as many orders as
+// there were copies go through, everyone else gets InsufficientStockException, and stock never goes
+// below zero. Runs on the default conditional UPDATE; the subclass repeats it on the inventory ledger.
+@SpringBootTest
+@PostgresTest
+class CheckoutConcurrencyTest {
+
+    private static final int COPIES = 5;
+    private static final int CUSTOMERS = 200;
+
+    @Autowired
+    private OrderService orderService;
+    @Autowired
+    private CartService cartService;
+    @Autowired
+    private BookRepository bookRepository;
+    @Autowired
+    private InventoryLedger inventoryLedger;
+    @Autowired
+    private TestFixtures fixtures;
+
+    @Test
+    void lastCopiesAreNeverOversold() throws Exception {
+        Book book = fixtures.book(COPIES);
+        List<User> customers = IntStream.range(0, CUSTOMERS).mapToObj(i -> fixtures.customer()).toList();
+        for (User customer : customers) {
+            cartService.addItem(customer.getId(), new CartItemRequest(book.getId(), 1));
+        }
+
+        CheckoutRequest request = CheckoutRequest.builder().shippingAddress("1 Test Street").build();
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<Boolean>> results = new ArrayList<>(CUSTOMERS);
+        try (ExecutorService threads = Executors.newFixedThreadPool(CUSTOMERS)) {
+            for (User customer : customers) {
+                results.add(threads.submit(() -> {
+                    start.await();
+                    try {
+                        orderService.checkout(customer.getId(), request);
+                        return true;
+                    } catch (InsufficientStockException e) {
+                        return false;
+                    }
+                }));
+            }
+            start.countDown();
+        }
+
+        int placed = 0;
+        for (Future<Boolean> result : results) {
+            if (result.get()) {
+                placed++;
+            }
+        }
+        assertThat(placed).isEqualTo(COPIES);
+        assertThat(remaining(book.getId())).isZero();
+    }
+
+    // The ledger is ahead of books.quantity, which it only catches up in batches
+    private int remaining(Long bookId) {
+        if (inventoryLedger.isEnabled()) {
+            return inventoryLedger.onHand(bookId);
+        }
+        return bookRepository.findById(bookId).orElseThrow().getQuantity();
+    }
+}
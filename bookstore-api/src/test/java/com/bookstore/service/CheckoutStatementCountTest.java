@@ -0,0 +1,95 @@
+package com.bookstore.service;
+
+import com.bookstore.PostgresTest;
+import com.bookstore.TestFixtures;
+import com.bookstore.dto.request.CartItemRequest;
+import com.bookstore.dto.request.CheckoutRequest;
+import com.bookstore.entity.Book;
+import com.bookstore.entity.User;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.PersistenceContext;
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Statement count and latency of a 20-line checkout with JDBC batching off (one round trip per
+// order item, as with identity ids) and on (pooled sequence ids, batch size 50). Both runs share
+// one context; the batch size is switched per session.
+@SpringBootTest(properties = {
+        "spring.jpa.properties.hibernate.generate_statistics=true",
+        "bookstore.cart.store=database"
+})
+@PostgresTest
+class CheckoutStatementCountTest {
+
+    private static final int LINES = 20;
+    private static final int RUNS = 5;
+
+    @Autowired
+    private OrderService orderService;
+    @Autowired
+    private CartService cartService;
+    @Autowired
+    private TestFixtures fixtures;
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Test
+    void batchedCheckoutSendsOrderItemsAsOneStatement() {
+        User user = fixtures.customer();
+        List<Book> books = IntStream.range(0, LINES).mapToObj(i -> fixtures.book(1000)).toList();
+
+        Measurement unbatched = measure(user, books, 1);
+        Measurement batched = measure(user, books, 50);
+        System.out.printf("%d-line checkout: unbatched %d statements / %.2f ms, batched %d statements / %.2f ms%n",
+                LINES, unbatched.statements(), unbatched.millis(), batched.statements(), batched.millis());
+
+        // The order items collapse from one statement each into a single batch
+        assertThat(unbatched.statements() - batched.statements()).isGreaterThanOrEqualTo(LINES - 1);
+    }
+
+    private Measurement measure(User user, List<Book> books, int batchSize) {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        CheckoutRequest request = CheckoutRequest.builder().shippingAddress("1 Test Street").build();
+
+        long statements = 0;
+        long nanos = 0;
+        // The first run only warms up
+        for (int run = 0; run <= RUNS; run++) {
+            for (Book book : books) {
+                cartService.addItem(user.getId(), new CartItemRequest(book.getId(), 1));
+            }
+
+            statistics.clear();
+            long started = System.nanoTime();
+            transaction.executeWithoutResult(status -> {
+                entityManager.unwrap(Session.class).setJdbcBatchSize(batchSize);
+                orderService.checkout(user.getId(), request);
+            });
+            if (run > 0) {
+                nanos += System.nanoTime() - started;
+                statements += statistics.getPrepareStatementCount();
+            }
+        }
+        return new Measurement(statements / RUNS, nanos / RUNS / 1_000_000.0);
+    }
+
+    private record Measurement(long statements, double millis) {
+    }
+}
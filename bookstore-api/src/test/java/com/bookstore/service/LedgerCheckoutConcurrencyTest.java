@@ -0,0 +1,9 @@
+package com.bookstore.service;
+
+import com.bookstore.PostgresTest;
+import org.springframework.boot.test.context.SpringBootTest;
+
+@SpringBootTest(properties = "bookstore.inventory.ledger.enabled=true")
+@PostgresTest
+class LedgerCheckoutConcurrencyTest extends CheckoutConcurrencyTest {
+}
@@ -0,0 +1,88 @@
+package com.bookstore.service;
+
+import com.bookstore.LoadProbe;
+import com.bookstore.PostgresTest;
+import com.bookstore.TestFixtures;
+import com.bookstore.entity.User;
+import com.bookstore.repository.UserRepository;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// A login storm saturates the BCrypt pool. Because no connection is held while hashing, the
+// catalog keeps its four connections and its latency; logins beyond the pool are shed with 503.
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "spring.datasource.hikari.maximum-pool-size=4",
+        "spring.datasource.hikari.connection-timeout=2000",
+        "security.password-hashing.threads=2"
+})
+@PostgresTest
+class LoginStormTest {
+
+    private static final Logger log = LoggerFactory.getLogger(LoginStormTest.class);
+
+    private static final String PASSWORD = "correct horse battery staple";
+    private static final Duration PROBE = Duration.ofSeconds(10);
+
+    @LocalServerPort
+    private int port;
+    @Autowired
+    private TestFixtures fixtures;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private PasswordEncoder passwordEncoder;
+
+    @Test
+    void catalogLatencyHoldsDuringALoginStorm() throws Exception {
+        for (int i = 0; i < 50; i++) {
+            fixtures.book(10);
+        }
+        User user = fixtures.customer();
+        user.setPasswordHash(passwordEncoder.encode(PASSWORD));
+        userRepository.save(user);
+
+        HttpClient client = HttpClient.newBuilder().executor(Executors.newVirtualThreadPerTaskExecutor()).build();
+        URI catalog = URI.create("http://localhost:" + port + "/api/books?page=0&size=20");
+        URI login = URI.create("http://localhost:" + port + "/api/auth/login");
+        String body = "{\"email\":\"" + user.getEmail() + "\",\"password\":\"" + PASSWORD + "\"}";
+
+        LoadProbe.Result quiet = LoadProbe.run(client, () -> HttpRequest.newBuilder(catalog).GET().build(), 8, PROBE);
+        log.info("catalog alone: {}", quiet);
+
+        CompletableFuture<LoadProbe.Result> storm = CompletableFuture.supplyAsync(() -> {
+            try {
+                return LoadProbe.run(client, () -> HttpRequest.newBuilder(login)
+                        .header("Content-Type", "application/json")
+                        .POST(HttpRequest.BodyPublishers.ofString(body))
+                        .build(), 200, PROBE);
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+        });
+        LoadProbe.Result loaded = LoadProbe.run(client, () -> HttpRequest.newBuilder(catalog).GET().build(), 8, PROBE);
+        LoadProbe.Result logins = storm.get();
+        log.info("catalog during storm: {}", loaded);
+        log.info("logins: {}", logins);
+
+        assertThat(quiet.errors()).isZero();
+        assertThat(loaded.errors()).isZero();
+        // Before the fix every connection sat behind a queued BCrypt call and the catalog hit the 2s timeout
+        assertThat(loaded.p99Millis()).isLessThan(Math.max(500, quiet.p99Millis() * 5));
+        assertThat(logins.count(200)).isPositive();
+        assertThat(logins.count(200) + logins.count(503)).isEqualTo(logins.requests());
+    }
+}
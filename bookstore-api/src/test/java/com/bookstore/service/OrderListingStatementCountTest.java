@@ -0,0 +1,77 @@
+package com.bookstore.service;
+
+import com.bookstore.PostgresTest;
+import com.bookstore.TestFixtures;
+import com.bookstore.dto.response.PageResponse;
+import com.bookstore.entity.Book;
+import com.bookstore.entity.OrderStatus;
+import com.bookstore.entity.User;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.util.List;
+import java.util.function.Supplier;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// A page of orders costs the page query, the count and one query for user, items and books - however
+// many orders are on it. The summary view is the page query plus the count.
+@SpringBootTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@PostgresTest
+class OrderListingStatementCountTest {
+
+    private static final int ORDERS = 60;
+    private static final int[] PAGE_SIZES = {5, 20, 50};
+
+    @Autowired
+    private OrderService orderService;
+    @Autowired
+    private TestFixtures fixtures;
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private User user;
+
+    @BeforeEach
+    void createOrders() {
+        user = fixtures.customer();
+        List<Book> books = IntStream.range(0, 3).mapToObj(i -> fixtures.book(10)).toList();
+        for (int i = 0; i < ORDERS; i++) {
+            fixtures.order(user, books);
+        }
+    }
+
+    @Test
+    void detailedPagesCostThreeStatementsAtAnySize() {
+        for (int size : PAGE_SIZES) {
+            assertStatements(3, size, () -> orderService.getUserOrders(user.getId(), 0, size));
+            assertStatements(3, size, () -> orderService.getAllOrders(0, size, "createdAt", "desc"));
+            assertStatements(3, size, () -> orderService.getOrdersByStatus(OrderStatus.PENDING, 0, size));
+        }
+    }
+
+    @Test
+    void summaryPagesCostOneQueryPlusTheCount() {
+        for (int size : PAGE_SIZES) {
+            assertStatements(2, size, () -> orderService.getUserOrderSummaries(user.getId(), 0, size));
+            assertStatements(2, size, () -> orderService.getAllOrderSummaries(0, size, "createdAt", "desc"));
+            assertStatements(2, size, () -> orderService.getOrderSummariesByStatus(OrderStatus.PENDING, 0, size));
+        }
+    }
+
+    private void assertStatements(int expected, int size, Supplier<PageResponse<?>> listing) {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+        PageResponse<?> page = listing.get();
+
+        // Full pages, so the count query is never skipped
+        assertThat(page.getContent()).hasSize(size);
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(expected);
+    }
+}
@@ -0,0 +1,58 @@
+package com.bookstore.service;
+
+import com.bookstore.BenchmarkTest;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+import java.util.Arrays;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Hash and verify times per BCrypt cost, to pick security.password.bcrypt-strength for the hardware.
+// Each step doubles the work, so the sweep also checks the encoder really honours the cost.
+@BenchmarkTest
+class PasswordHashingCostTest {
+
+    private static final Logger log = LoggerFactory.getLogger(PasswordHashingCostTest.class);
+
+    private static final String PASSWORD = "correct horse battery staple";
+    private static final int SAMPLES = 5;
+
+    @Test
+    void sweepCosts10To14() {
+        long[] medians = new long[15];
+        StringBuilder table = new StringBuilder("\ncost  encode ms  matches ms  logins/s/core");
+        for (int cost = 10; cost <= 14; cost++) {
+            BCryptPasswordEncoder encoder = new BCryptPasswordEncoder(cost);
+            encoder.encode(PASSWORD);
+
+            long[] encodes = new long[SAMPLES];
+            long[] verifies = new long[SAMPLES];
+            for (int i = 0; i < SAMPLES; i++) {
+                long started = System.nanoTime();
+                String hash = encoder.encode(PASSWORD);
+                encodes[i] = System.nanoTime() - started;
+
+                started = System.nanoTime();
+                assertThat(encoder.matches(PASSWORD, hash)).isTrue();
+                verifies[i] = System.nanoTime() - started;
+            }
+            medians[cost] = median(verifies);
+            table.append(String.format("%n%4d  %9.1f  %10.1f  %13.1f", cost,
+                    median(encodes) / 1e6, medians[cost] / 1e6, 1e9 / medians[cost]));
+        }
+        log.info("BCrypt cost sweep ({} samples, medians):{}", SAMPLES, table);
+
+        for (int cost = 11; cost <= 14; cost++) {
+            assertThat(medians[cost]).isGreaterThan(medians[cost - 1] * 3 / 2);
+        }
+    }
+
+    private static long median(long[] samples) {
+        long[] sorted = samples.clone();
+        Arrays.sort(sorted);
+        return sorted[sorted.length / 2];
+    }
+}
@@ -0,0 +1,139 @@
+package com.bookstore.service;
+
+import com.bookstore.BenchmarkTest;
+import com.bookstore.exception.BookstoreExceptions.*;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class SnowflakeOrderNumberGeneratorTest {
+
+    private static final Logger log = LoggerFactory.getLogger(SnowflakeOrderNumberGeneratorTest.class);
+
+    private static final int ORDERS = 10_000_000;
+    private static final int NODES = 2;
+    private static final int THREADS_PER_NODE = 4;
+    private static final long EPOCH_MILLIS = Instant.parse("2024-01-01T00:00:00Z").toEpochMilli();
+
+    @Test
+    void tenMillionOrdersOnSeveralNodesAndThreadsNeverCollide() throws Exception {
+        long[] ids = new long[ORDERS];
+        int perThread = ORDERS / (NODES * THREADS_PER_NODE);
+
+        try (ExecutorService threads = Executors.newFixedThreadPool(NODES * THREADS_PER_NODE)) {
+            List<Future<Boolean>> increasing = new ArrayList<>();
+            for (int node = 0; node < NODES; node++) {
+                SnowflakeOrderNumberGenerator generator = generator(node, -1);
+                for (int thread = 0; thread < THREADS_PER_NODE; thread++) {
+                    int from = (node * THREADS_PER_NODE + thread) * perThread;
+                    increasing.add(threads.submit(() -> {
+                        for (int i = from; i < from + perThread; i++) {
+                            ids[i] = generator.nextId();
+                            if (i > from && ids[i] <= ids[i - 1]) {
+                                return false;
+                            }
+                        }
+                        return true;
+                    }));
+                }
+            }
+            for (Future<Boolean> thread : increasing) {
+                assertThat(thread.get()).isTrue();
+            }
+        }
+
+        Arrays.sort(ids);
+        for (int i = 1; i < ids.length; i++) {
+            assertThat(ids[i]).isGreaterThan(ids[i - 1]);
+        }
+    }
+
+    @Test
+    void continuesAfterNumbersHandedOutAheadOfTheClock() {
+        long aheadMillis = System.currentTimeMillis() - EPOCH_MILLIS + 60_000;
+        SnowflakeOrderNumberGenerator generator = generator(0, aheadMillis);
+
+        long id = generator.nextId();
+
+        assertThat(id >>> 22).isEqualTo(aheadMillis + 1);
+    }
+
+    @Test
+    void numbersSortByCreationTime() {
+        SnowflakeOrderNumberGenerator generator = generator(3, -1);
+
+        String first = generator.next();
+        String second = generator.next();
+
+        assertThat(first).matches("ORD-[0-9A-Z]{13}");
+        assertThat(second).isGreaterThan(first);
+    }
+
+    @Test
+    void refusesNumbersWithoutTheNodeLease() {
+        SnowflakeOrderNumberGenerator generator = new SnowflakeOrderNumberGenerator(0, -1, () -> false);
+
+        assertThatThrownBy(generator::next).isInstanceOf(ServiceUnavailableException.class);
+    }
+
+    // Throughput next to the random-UUID numbers this replaced
+    @Test
+    @BenchmarkTest
+    void fasterThanRandomUuidOrderNumbers() throws Exception {
+        int n = 2_000_000;
+        SnowflakeOrderNumberGenerator generator = generator(0, -1);
+        for (int i = 0; i < n; i++) {
+            generator.next();
+            legacyOrderNumber();
+        }
+
+        long started = System.nanoTime();
+        for (int i = 0; i < n; i++) {
+            generator.next();
+        }
+        double snowflake = (System.nanoTime() - started) / (double) n;
+
+        started = System.nanoTime();
+        for (int i = 0; i < n; i++) {
+            legacyOrderNumber();
+        }
+        double uuid = (System.nanoTime() - started) / (double) n;
+
+        int threads = Runtime.getRuntime().availableProcessors();
+        started = System.nanoTime();
+        try (ExecutorService pool = Executors.newFixedThreadPool(threads)) {
+            for (int t = 0; t < threads; t++) {
+                pool.submit(() -> {
+                    for (int i = 0; i < n / threads; i++) {
+                        generator.next();
+                    }
+                });
+            }
+        }
+        double contended = (System.nanoTime() - started) / (double) (n / threads * threads);
+
+        log.info("Order numbers: snowflake {} ns/op, random UUID {} ns/op, snowflake on {} threads {} ns/op",
+                Math.round(snowflake), Math.round(uuid), threads, Math.round(contended));
+        assertThat(snowflake).isLessThan(uuid);
+    }
+
+    private static SnowflakeOrderNumberGenerator generator(long nodeId, long latestMillis) {
+        return new SnowflakeOrderNumberGenerator(nodeId, latestMillis, () -> true);
+    }
+
+    private static String legacyOrderNumber() {
+        return "ORD-" + UUID.randomUUID().toString().substring(0, 8).toUpperCase();
+    }
+}
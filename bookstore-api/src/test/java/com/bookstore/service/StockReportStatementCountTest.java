@@ -0,0 +1,53 @@
+package com.bookstore.service;
+
+import com.bookstore.PostgresTest;
+import com.bookstore.TestFixtures;
+import com.bookstore.dto.response.BookResponse;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// The out-of-stock list reads the books once and their categories in batches of 100, however many
+// books there are - no IN clause with one bind parameter per book.
+@SpringBootTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@PostgresTest
+class StockReportStatementCountTest {
+
+    private static final Logger log = LoggerFactory.getLogger(StockReportStatementCountTest.class);
+
+    private static final int BOOKS = 250;
+    private static final int CATEGORY_BATCH = 100;
+
+    @Autowired
+    private BookService bookService;
+    @Autowired
+    private TestFixtures fixtures;
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Test
+    void outOfStockBooksLoadCategoriesInBatches() {
+        for (int i = 0; i < BOOKS; i++) {
+            fixtures.book(0);
+        }
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+
+        statistics.clear();
+        List<BookResponse> books = bookService.getOutOfStockBooks();
+        long statements = statistics.getPrepareStatementCount();
+        log.info("{} out-of-stock books: {} statements", books.size(), statements);
+
+        // Other tests in this database may have added out-of-stock books of their own
+        assertThat(books).hasSizeGreaterThanOrEqualTo(BOOKS);
+        assertThat(statements).isLessThanOrEqualTo(1 + (books.size() + CATEGORY_BATCH - 1) / CATEGORY_BATCH);
+    }
+}
@@ -0,0 +1,94 @@
+package com.bookstore.service;
+
+import com.bookstore.PostgresTest;
+import com.bookstore.TestFixtures;
+import com.bookstore.dto.response.CartItemResponse;
+import com.bookstore.entity.Book;
+import com.bookstore.entity.User;
+import com.bookstore.repository.CartItemRepository;
+import com.bookstore.repository.ShoppingCartRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+
+@SpringBootTest(properties = "bookstore.cart.store=memory")
+@PostgresTest
+class WriteBehindCartStoreTest {
+
+    @Autowired
+    private WriteBehindCartStore cartStore;
+    @Autowired
+    private ShoppingCartRepository cartRepository;
+    @Autowired
+    private CartItemRepository cartItemRepository;
+    @Autowired
+    private TestFixtures fixtures;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Test
+    void keepsChangesMadeWhileTheCartWasBeingCheckedOut() {
+        User user = fixtures.customer();
+        Book bought = fixtures.book(10);
+        Book addedDuringCheckout = fixtures.book(10);
+        cartStore.addItem(user.getId(), bought.getId(), 1);
+
+        // Checkout: flush, read and delete the rows, then a second request adds a book before the commit
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            cartStore.flush(user.getId());
+            Long cartId = cartRepository.findByUserIdWithItems(user.getId()).orElseThrow().getId();
+            cartStore.addItem(user.getId(), addedDuringCheckout.getId(), 2);
+            cartItemRepository.deleteAllByCartId(cartId);
+            cartStore.invalidate(user.getId());
+        });
+
+        assertThat(cartStore.getCart(user.getId()).getItems())
+                .extracting(CartItemResponse::getBookId, CartItemResponse::getQuantity)
+                .containsExactly(tuple(addedDuringCheckout.getId(), 2));
+
+        cartStore.flushDirty();
+        assertThat(cartRepository.findByUserIdWithItems(user.getId()).orElseThrow().getItems())
+                .extracting(item -> item.getBook().getId())
+                .containsExactly(addedDuringCheckout.getId());
+    }
+
+    @Test
+    void reportsTheItemIdsOfNewLinesOnceFlushed() {
+        User user = fixtures.customer();
+        Book first = fixtures.book(10);
+        Book second = fixtures.book(10);
+        cartStore.addItem(user.getId(), first.getId(), 1);
+        cartStore.addItem(user.getId(), second.getId(), 2);
+        assertThat(cartStore.getCart(user.getId()).getItems()).extracting(CartItemResponse::getId).containsOnlyNulls();
+
+        cartStore.flushDirty();
+
+        assertThat(cartStore.getCart(user.getId()).getItems())
+                .extracting(CartItemResponse::getBookId, CartItemResponse::getId)
+                .containsExactlyInAnyOrderElementsOf(
+                        cartRepository.findByUserIdWithItems(user.getId()).orElseThrow().getItems().stream()
+                                .map(item -> tuple(item.getBook().getId(), item.getId()))
+                                .toList());
+    }
+
+    @Test
+    void forgetsTheCartWhenNothingChangedDuringCheckout() {
+        User user = fixtures.customer();
+        Book bought = fixtures.book(10);
+        cartStore.addItem(user.getId(), bought.getId(), 1);
+
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            cartStore.flush(user.getId());
+            Long cartId = cartRepository.findByUserIdWithItems(user.getId()).orElseThrow().getId();
+            cartItemRepository.deleteAllByCartId(cartId);
+            cartStore.invalidate(user.getId());
+        });
+
+        assertThat(cartStore.getCart(user.getId()).getItems()).isEmpty();
+    }
+}
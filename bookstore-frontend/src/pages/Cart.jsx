@@ -134,7 +134,7 @@ function Cart() {
           <div className="card" style={{ padding: '0', overflow: 'hidden' }}>
             {cart.items.map((item, index) => (
               <div 
-                key={item.id}
+                key={item.bookId}
                 className="cart-item"
                 style={{
                   borderBottom: index < cart.items.length - 1 ? '1px solid var(--gray-100)' : 'none'
@@ -4,7 +4,9 @@ import { ordersAPI } from '../services/api';
 
 function Orders() {
   const [orders, setOrders] = useState([]);
+  const [nextCursor, setNextCursor] = useState(null);
   const [loading, setLoading] = useState(true);
+  const [loadingMore, setLoadingMore] = useState(false);
   const [error, setError] = useState('');
   const [expandedOrder, setExpandedOrder] = useState(null);
   const location = useLocation();
@@ -16,7 +18,8 @@ function Orders() {
   const fetchOrders = async () => {
     try {
       const response = await ordersAPI.getMyOrders();
-      setOrders(response.data.data);
+      setOrders(response.data.data.content);
+      setNextCursor(response.data.data.nextCursor);
     } catch (err) {
       setError('Error loading orders');
       console.error(err);
@@ -25,6 +28,20 @@ function Orders() {
     }
   };
 
+  const loadMore = async () => {
+    setLoadingMore(true);
+    try {
+      const response = await ordersAPI.getMyOrders({ cursor: nextCursor });
+      setOrders(prev => [...prev, ...response.data.data.content]);
+      setNextCursor(response.data.data.nextCursor);
+    } catch (err) {
+      setError('Error loading orders');
+      console.error(err);
+    } finally {
+      setLoadingMore(false);
+    }
+  };
+
   const handleCancel = async (orderId) => {
     if (!window.confirm('Are you sure you want to cancel this order?')) return;
     
@@ -195,6 +212,13 @@ function Orders() {
               )}
             </div>
           ))}
+          {nextCursor && (
+            <div className="text-center">
+              <button className="btn btn-secondary" onClick={loadMore} disabled={loadingMore}>
+                {loadingMore ? 'Loading...' : 'Load more orders'}
+              </button>
+            </div>
+          )}
         </div>
       )}
     </div>
@@ -105,7 +105,7 @@ export const cartAPI = {
 
 // Orders API
 export const ordersAPI = {
-  getMyOrders: () => api.get('/orders'),
+  getMyOrders: (params) => api.get('/orders', { params }),
   getById: (id) => api.get(`/orders/${id}`),
   checkout: (data) => api.post('/orders/checkout', data),
   cancel: (id) => api.post(`/orders/${id}/cancel`),